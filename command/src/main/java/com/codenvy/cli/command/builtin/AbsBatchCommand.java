@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.command.builtin.batch.BatchEntry;
+import com.codenvy.cli.command.builtin.batch.BatchJob;
+import com.codenvy.cli.command.builtin.batch.BatchScheduler;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+
+import org.apache.karaf.shell.commands.Option;
+import org.fusesource.jansi.Ansi;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.fusesource.jansi.Ansi.Color.RED;
+
+/**
+ * Common class for commands that can process several projects at once, in a dependency order.
+ */
+public abstract class AbsBatchCommand extends AbsCommand {
+
+    @Option(name = "--file", description = "Read project IDs from a file, one '<project-id>[: <dependency-id>...]' per line")
+    private String file;
+
+    @Option(name = "--parallel", description = "Maximum number of projects processed at the same time on a remote")
+    private int parallel = BatchScheduler.DEFAULT_PARALLEL;
+
+    @Option(name = "--fail-fast", description = "Stop processing projects on the first failure")
+    private boolean failFast;
+
+    /**
+     * Build the job that will process the given project
+     * @param id the identifier used to declare the project
+     * @param project the project
+     * @return the job
+     */
+    protected abstract BatchJob newBatchJob(String id, UserProjectReference project);
+
+    /**
+     * Checks if several projects need to be processed
+     * @param projectIDs the project IDs given as arguments
+     */
+    protected boolean isBatch(List<String> projectIDs) {
+        if (file != null) {
+            return true;
+        }
+        if (projectIDs == null) {
+            return false;
+        }
+        return projectIDs.size() > 1 || (projectIDs.size() == 1 && BatchEntry.hasDependencies(projectIDs.get(0)));
+    }
+
+    /**
+     * Process all the given projects and the ones declared in the file.
+     * @param projectIDs the project IDs given as arguments
+     */
+    protected void executeBatch(List<String> projectIDs) throws InterruptedException {
+        List<BatchEntry> entries = new ArrayList<>();
+        try {
+            if (projectIDs != null) {
+                for (String projectID : projectIDs) {
+                    entries.add(BatchEntry.parse(projectID));
+                }
+            }
+            if (file != null) {
+                entries.addAll(BatchEntry.read(Paths.get(file)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            printError("Unable to read the projects: " + e.getMessage());
+            return;
+        }
+
+        if (entries.isEmpty()) {
+            printError("No projectID has been set");
+            return;
+        }
+
+        // resolve all identifiers in one pass
+        Set<String> ids = new LinkedHashSet<>();
+        for (BatchEntry entry : entries) {
+            ids.add(entry.getProjectId());
+        }
+        Map<String, UserProjectReference> projects;
+        try {
+            projects = getMultiRemoteCodenvy().getProjectReferences(ids);
+        } catch (IllegalArgumentException e) {
+            printError(e.getMessage());
+            return;
+        }
+
+        // build jobs
+        Map<String, BatchJob> jobs = new LinkedHashMap<>();
+        for (BatchEntry entry : entries) {
+            UserProjectReference project = projects.get(entry.getProjectId());
+            if (project == null) {
+                printError("No matching project for identifier '" + entry.getProjectId() + "'.");
+                return;
+            }
+            if (!jobs.containsKey(entry.getProjectId())) {
+                jobs.put(entry.getProjectId(), newBatchJob(entry.getProjectId(), project));
+            }
+        }
+        for (BatchEntry entry : entries) {
+            BatchJob job = jobs.get(entry.getProjectId());
+            for (String dependency : entry.getDependencies()) {
+                BatchJob dependencyJob = jobs.get(dependency);
+                if (dependencyJob == null) {
+                    printError("The dependency '" + dependency + "' of project '" + entry.getProjectId() + "' is not part of the projects to process");
+                    return;
+                }
+                job.addDependency(dependencyJob);
+            }
+        }
+
+        List<BatchJob> batchJobs = new ArrayList<>(jobs.values());
+        boolean successful;
+        try {
+            successful = new BatchScheduler(batchJobs, parallel, failFast).execute();
+        } catch (IllegalArgumentException e) {
+            printError(e.getMessage());
+            return;
+        }
+
+        displayReport(batchJobs);
+        if (!successful) {
+            printError("Some projects have not been processed successfully");
+        }
+    }
+
+    /**
+     * Display the final state of each job
+     */
+    protected void displayReport(List<BatchJob> batchJobs) {
+        List<String> ids = new ArrayList<>();
+        List<String> projectNames = new ArrayList<>();
+        List<String> remotes = new ArrayList<>();
+        List<String> states = new ArrayList<>();
+        List<String> processIds = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        for (BatchJob job : batchJobs) {
+            ids.add(job.getId());
+            projectNames.add(job.getProject().name());
+            remotes.add(job.getRemote());
+            states.add(job.getState().toString());
+            processIds.add(job.getProcessId());
+            messages.add(job.getMessage());
+        }
+        System.out.println(buildAsciiArray().withColumns(ids, projectNames, remotes, states, processIds, messages)
+                                            .withTitle("ID", "Project", "Remote", "State", "Process", "Message").toAscii());
+    }
+
+    protected void printError(String message) {
+        Ansi buffer = Ansi.ansi();
+        buffer.fg(RED);
+        buffer.a(message);
+        buffer.reset();
+        System.out.println(buffer.toString());
+    }
+
+}
@@ -38,6 +38,8 @@ import java.nio.file.Path;
 import static com.codenvy.cli.command.builtin.Constants.DEFAULT_PREFERENCES_RESOURCENAME;
 import static com.codenvy.cli.command.builtin.Constants.PREFERENCES_FOLDER;
 import static com.codenvy.cli.command.builtin.Constants.PREFERENCES_STORE_FILE;
+import static com.codenvy.cli.command.builtin.Constants.PREFERENCES_URI_SESSION_KEY;
+import static com.codenvy.cli.command.builtin.Constants.PREFERENCES_URI_PROPERTY;
 import static com.codenvy.cli.command.builtin.util.ascii.FormatterMode.MODERN;
 import static java.lang.String.format;
 import static org.fusesource.jansi.Ansi.Color.RED;
@@ -96,28 +98,7 @@ public abstract class AbsCommand extends OsgiCommandSupport {
         // Do we have existing preferences ?
         this.globalPreferences = (Preferences)session.get(Preferences.class.getName());
         if (globalPreferences == null) {
-
-            // preferences folder exists ?
-            File codenvyPreferencesFolder = new File(PREFERENCES_FOLDER);
-            if (!codenvyPreferencesFolder.exists()) {
-                boolean create = codenvyPreferencesFolder.mkdirs();
-                if (!create) {
-                    throw new IllegalStateException(format("Unable to create preferences folder %s", codenvyPreferencesFolder));
-                }
-            }
-
-            // Do we have a preferences file ?
-            File codenvyPreferences = new File(PREFERENCES_STORE_FILE);
-            if (!codenvyPreferences.exists()) {
-                // needs to dump the default one
-                try (InputStream is = AbsCommand.class.getResourceAsStream(DEFAULT_PREFERENCES_RESOURCENAME)) {
-                    Path dest = codenvyPreferences.toPath();
-                    Files.copy(is, dest);
-                } catch (IOException e) {
-                    throw new IllegalStateException(format("Unable to initialize the default preferences file %s", codenvyPreferences), e);
-                }
-            }
-            globalPreferences = PreferencesAPI.getPreferences(codenvyPreferences.toURI());
+            globalPreferences = buildPreferences();
             session.put(Preferences.class.getName(), globalPreferences);
         }
 
@@ -133,6 +114,47 @@ public abstract class AbsCommand extends OsgiCommandSupport {
 
     }
 
+    /**
+     * Build the global preferences. They are stored in the preferences file of the user unless another URI is given with the
+     * {@link Constants#PREFERENCES_URI_PROPERTY} system property, for example {@code mem:cli} to keep them in memory only. The URI is
+     * kept in the session so the preferences are released when the session ends.
+     */
+    protected Preferences buildPreferences() {
+        String preferencesURI = System.getProperty(PREFERENCES_URI_PROPERTY);
+        if (preferencesURI != null && !preferencesURI.isEmpty()) {
+            Preferences preferences = PreferencesAPI.getPreferences(URI.create(preferencesURI));
+            if (preferences == null) {
+                throw new IllegalStateException(format("No preferences provider is available for the URI %s", preferencesURI));
+            }
+            session.put(PREFERENCES_URI_SESSION_KEY, URI.create(preferencesURI));
+            return preferences;
+        }
+
+        // preferences folder exists ?
+        File codenvyPreferencesFolder = new File(PREFERENCES_FOLDER);
+        if (!codenvyPreferencesFolder.exists()) {
+            boolean create = codenvyPreferencesFolder.mkdirs();
+            if (!create) {
+                throw new IllegalStateException(format("Unable to create preferences folder %s", codenvyPreferencesFolder));
+            }
+        }
+
+        // Do we have a preferences file ?
+        File codenvyPreferences = new File(PREFERENCES_STORE_FILE);
+        if (!codenvyPreferences.exists()) {
+            // needs to dump the default one
+            try (InputStream is = AbsCommand.class.getResourceAsStream(DEFAULT_PREFERENCES_RESOURCENAME)) {
+                Path dest = codenvyPreferences.toPath();
+                Files.copy(is, dest);
+            } catch (IOException e) {
+                throw new IllegalStateException(format("Unable to initialize the default preferences file %s", codenvyPreferences), e);
+            }
+        }
+        Preferences preferences = PreferencesAPI.getPreferences(codenvyPreferences.toURI());
+        session.put(PREFERENCES_URI_SESSION_KEY, codenvyPreferences.toURI());
+        return preferences;
+    }
+
     /**
      * @return multi remote
      */
@@ -140,6 +162,13 @@ public abstract class AbsCommand extends OsgiCommandSupport {
         return multiRemoteCodenvy;
     }
 
+    /**
+     * @return global preferences
+     */
+    protected Preferences getGlobalPreferences() {
+        return globalPreferences;
+    }
+
     /**
      * Checks that there are available codenvy remotes
      *
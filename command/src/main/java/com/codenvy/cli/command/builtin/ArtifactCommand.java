@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.command.builtin.model.UserBuilderStatus;
+import com.codenvy.cli.command.builtin.util.download.ArtifactDownloader;
+import com.codenvy.cli.command.builtin.util.download.DownloadResult;
+import com.codenvy.cli.command.builtin.util.download.RequestSigner;
+import com.codenvy.client.model.BuilderState;
+import com.codenvy.client.model.Link;
+
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
+import org.fusesource.jansi.Ansi;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static com.codenvy.cli.command.builtin.MultiRemoteCodenvy.checkOnlyOne;
+import static java.lang.String.format;
+import static org.fusesource.jansi.Ansi.Color.RED;
+
+/**
+ * Artifact command.
+ * This command will download the artifact produced by a builder.
+ */
+@Command(scope = "codenvy", name = "artifact", description = "Download the artifact of a successful build")
+public class ArtifactCommand extends AbsCommand {
+
+    @Argument(name = "builder-id", description = "Specify the builder ID", required = true, multiValued = false)
+    private String builderID;
+
+    @Option(name = "-o", aliases = {"--output"}, description = "File or directory where to store the artifact")
+    private String output;
+
+    @Option(name = "--chunks", description = "Maximum number of parallel requests used to download the artifact")
+    private int chunks = ArtifactDownloader.DEFAULT_CHUNKS;
+
+    @Option(name = "--sha1", description = "Expected SHA-1 checksum of the artifact")
+    private String sha1;
+
+    /**
+     * Download the artifact of the given builder
+     */
+    protected Object execute() {
+        init();
+
+        // not logged in
+        if (!checkifEnabledRemotes()) {
+            return null;
+        }
+
+        // do we have the builder ID ?
+        if (builderID == null) {
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("No builder ID has been set");
+            buffer.reset();
+            System.out.println(buffer.toString());
+            return null;
+        }
+
+        UserBuilderStatus builderStatus = checkOnlyOne(getMultiRemoteCodenvy().findBuilders(builderID), builderID, "builder", "builders");
+
+        // not found, errors already printed
+        if (builderStatus == null) {
+            return null;
+        }
+
+        BuilderState state = builderStatus.getInnerStatus().status();
+        Link artifactLink = builderStatus.getInnerStatus().getDownloadLink();
+        if (state != BuilderState.SUCCESSFUL || artifactLink == null) {
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("No artifact is available for the builder ").a(builderID).a(". Current state is ").a(state);
+            buffer.reset();
+            System.out.println(buffer.toString());
+            return null;
+        }
+
+        URL url;
+        try {
+            url = new URL(artifactLink.href());
+        } catch (MalformedURLException e) {
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("Invalid artifact URL '").a(artifactLink.href()).a("'");
+            buffer.reset();
+            System.out.println(buffer.toString());
+            return null;
+        }
+
+        File destination = getDestination(url);
+        RequestSigner signer = getMultiRemoteCodenvy().getRequestSigner(builderStatus.getProject().getWorkspace().getRemote());
+
+        try {
+            ArtifactDownloader downloader = new ArtifactDownloader(url, signer).withChunks(chunks).withExpectedSha1(sha1);
+            DownloadResult result = downloader.download(destination.toPath());
+            System.out.println(format("Artifact of project %s downloaded to %s (%d bytes, SHA-1 %s)", builderStatus.getProject().name(),
+                                      result.getPath(), result.getSize(), result.getSha1()));
+        } catch (IOException | IllegalArgumentException e) {
+            if (isStackTraceEnabled()) {
+                throw new IllegalStateException("Unable to download the artifact", e);
+            }
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("Unable to download the artifact: ").a(e.getMessage());
+            buffer.reset();
+            System.out.println(buffer.toString());
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the file that will contain the artifact. By default the name of the artifact is used in the current directory.
+     */
+    protected File getDestination(URL url) {
+        String path = url.getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (name.isEmpty()) {
+            name = builderID;
+        }
+
+        if (output == null) {
+            return new File(name);
+        }
+        File outputFile = new File(output);
+        if (outputFile.isDirectory()) {
+            return new File(outputFile, name);
+        }
+        return outputFile;
+    }
+
+}
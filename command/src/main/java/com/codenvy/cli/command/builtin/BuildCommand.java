@@ -10,6 +10,10 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin;
 
+import com.codenvy.cli.command.builtin.batch.BatchJob;
+import com.codenvy.cli.command.builtin.batch.BuildBatchJob;
+import com.codenvy.cli.command.builtin.helper.BuildCache;
+import com.codenvy.cli.command.builtin.helper.CachedBuild;
 import com.codenvy.cli.command.builtin.helper.WaitingAction;
 import com.codenvy.cli.command.builtin.helper.WaitingActionCondition;
 import com.codenvy.cli.command.builtin.helper.WaitingActionConditionState;
@@ -21,13 +25,14 @@ import com.codenvy.client.model.BuilderState;
 import com.codenvy.client.model.BuilderStatus;
 import com.codenvy.client.model.Link;
 import com.codenvy.client.model.Project;
-import com.codenvy.client.model.ProjectReference;
 
 import org.apache.karaf.shell.commands.Argument;
 import org.apache.karaf.shell.commands.Command;
 import org.apache.karaf.shell.commands.Option;
 import org.fusesource.jansi.Ansi;
 
+import java.util.List;
+
 import static com.codenvy.client.model.BuilderState.CANCELLED;
 import static com.codenvy.client.model.BuilderState.FAILED;
 import static com.codenvy.client.model.BuilderState.IN_PROGRESS;
@@ -38,14 +43,14 @@ import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD_OFF;
 import static org.fusesource.jansi.Ansi.Color.RED;
 
 /**
- * Allows to build a given project
+ * Allows to build a given project or several projects in a dependency order
  * @author Florent Benoit
  */
-@Command(scope = "codenvy", name = "build", description = "Build a project")
-public class BuildCommand extends AbsCommand {
+@Command(scope = "codenvy", name = "build", description = "Build one or more projects")
+public class BuildCommand extends AbsBatchCommand {
 
-    @Argument(name = "project-id", description = "Specify the project ID to use", required = true, multiValued = false)
-    private String projectID;
+    @Argument(name = "project-id", description = "Specify the project IDs to use, as <project-id>[:<dependency-id>,...]", required = false, multiValued = true)
+    private List<String> projectIDs;
 
     @Option(name = "--fg", description = "Run foreground", required = false)
     private boolean foreground;
@@ -53,6 +58,19 @@ public class BuildCommand extends AbsCommand {
     @Option(name = "--bg", description = "Run background", required = false)
     private boolean background;
 
+    @Option(name = "--force", description = "Build even if the sources did not change since the last successful build", required = false)
+    private boolean force;
+
+    /**
+     * Builds of the projects.
+     */
+    private BuildCache buildCache;
+
+    /**
+     * Build of the project, started or reused.
+     */
+    private BuildCache.Build build;
+
     /**
      * Execute the command
      */
@@ -65,8 +83,16 @@ public class BuildCommand extends AbsCommand {
             return null;
         }
 
+        buildCache = newBuildCache();
+
+        // several projects ?
+        if (isBatch(projectIDs)) {
+            executeBatch(projectIDs);
+            return null;
+        }
+
         // do we have the projectID ?
-        if (projectID == null) {
+        if (projectIDs == null || projectIDs.isEmpty()) {
             Ansi buffer = Ansi.ansi();
             buffer.fg(RED);
             buffer.a("No projectID has been set");
@@ -75,6 +101,8 @@ public class BuildCommand extends AbsCommand {
             return null;
         }
 
+        String projectID = projectIDs.get(0);
+
         // get project for the given shortID
         UserProjectReference project = getMultiRemoteCodenvy().getProjectReference(projectID);
 
@@ -88,9 +116,8 @@ public class BuildCommand extends AbsCommand {
         }
 
 
-        final ProjectReference projectToBuild = project.getInnerReference();
         // first check if the project has a builder
-        Project projectDescription = project.getCodenvy().project().getProject(projectToBuild.workspaceId(), projectToBuild).execute();
+        Project projectDescription = getMultiRemoteCodenvy().getProjectDescription(project);
         if (projectDescription != null) {
             if (projectDescription.builders() == null || projectDescription.builders().defaultBuilder() == null) {
                 Ansi buffer = Ansi.ansi();
@@ -104,10 +131,19 @@ public class BuildCommand extends AbsCommand {
         }
 
 
-        // Ok now we have the project
-        final BuilderStatus builderStatus = project.getCodenvy().builder().build(projectToBuild).execute();
-
-        UserBuilderStatus userBuilderStatus = new DefaultUserBuilderStatus(builderStatus, project);
+        // skip the build if the same sources have already been built
+        build = buildCache.build(project, force);
+        UserBuilderStatus userBuilderStatus = new DefaultUserBuilderStatus(build.getBuilderStatus(), project);
+        if (build.isReused()) {
+            if (SUCCESSFUL == userBuilderStatus.getInnerStatus().status()) {
+                displayCachedBuild(userBuilderStatus);
+                return null;
+            }
+            Ansi buffer = Ansi.ansi();
+            buffer.a("The same sources of project ").a(INTENSITY_BOLD).a(project.name()).a(INTENSITY_BOLD_OFF)
+                  .a(" are already being built by builder ").a(INTENSITY_BOLD).a(userBuilderStatus.shortId()).a(INTENSITY_BOLD_OFF);
+            System.out.println(buffer.toString());
+        }
 
         // ok so now we've started the run
         if (background) {
@@ -119,6 +155,21 @@ public class BuildCommand extends AbsCommand {
         return null;
     }
 
+    /**
+     * @return the cache of the builds stored in the global preferences
+     */
+    protected BuildCache newBuildCache() {
+        return new BuildCache(getGlobalPreferences());
+    }
+
+    /**
+     * Build the given project in a batch
+     */
+    @Override
+    protected BatchJob newBatchJob(String id, UserProjectReference project) {
+        return new BuildBatchJob(id, project, buildCache, force);
+    }
+
     /**
      * Build has been launched, just inform the user that process has been launched.
      * @param userBuilderStatus the builder status
@@ -172,6 +223,7 @@ public class BuildCommand extends AbsCommand {
             if (artifactLink != null) {
                 link = artifactLink.href();
             }
+            buildCache.succeeded(build, newStatus.getInnerStatus());
             System.out.println(format("Project %s has been successfully built.%nArtifact URL is '%s'", newStatus.getProject().name(), link));
         } else if (FAILED == newStatus.getInnerStatus().status()) {
             System.out.println(format("Project %s has a build failure", newStatus.getProject().name()));
@@ -188,6 +240,29 @@ public class BuildCommand extends AbsCommand {
     }
 
 
+    /**
+     * Display the result of a previous build made with the same sources
+     */
+    protected void displayCachedBuild(UserBuilderStatus userBuilderStatus) {
+        String link = "";
+        Link artifactLink = userBuilderStatus.getInnerStatus().getDownloadLink();
+        if (artifactLink != null) {
+            link = artifactLink.href();
+        } else {
+            CachedBuild cachedBuild = buildCache.get(userBuilderStatus.getProject());
+            if (cachedBuild != null && cachedBuild.getArtifactLink() != null && !cachedBuild.getArtifactLink().isEmpty()) {
+                link = cachedBuild.getArtifactLink();
+            }
+        }
+        System.out.println(format("Project %s is unchanged since its last successful build.%nArtifact URL is '%s'", userBuilderStatus.getProject().name(), link));
+        System.out.println("Use --force option to build it again.");
+
+        Ansi buffer = Ansi.ansi();
+        buffer.a("Builder ID is ").a(INTENSITY_BOLD).a(userBuilderStatus.shortId()).a(INTENSITY_BOLD_OFF);
+        System.out.println(buffer.toString());
+    }
+
+
     private static class BuilderStatusWaitingActionCondition implements WaitingActionCondition<BuilderStatus> {
         private boolean inProgress = false;
         private BuilderState currentState;
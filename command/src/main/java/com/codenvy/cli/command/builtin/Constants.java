@@ -50,6 +50,22 @@ public class Constants {
      */
     public static final String PREFERENCES_STORE_FILE = PREFERENCES_FOLDER + File.separator + "preferences.json";
 
+    /**
+     * System property giving the URI of the preferences to use instead of the preferences file, for example mem:cli to keep
+     * them in memory during non-interactive runs.
+     */
+    public static final String PREFERENCES_URI_PROPERTY = "codenvy.preferences.uri";
+
+    /**
+     * Key of the session attribute giving the URI of the preferences used by the session, released when the session ends.
+     */
+    public static final String PREFERENCES_URI_SESSION_KEY = "codenvy.preferences.session.uri";
+
+    /**
+     * System property disabling the warm-up of the remotes when the interactive shell starts if it is set to false.
+     */
+    public static final String WARM_UP_PROPERTY = "codenvy.warmup";
+
     /**
      * Default project type for creating projects.
      */
@@ -108,7 +108,7 @@ public class CreateFactoryCommand extends AbsCommand {
      */
     protected String createFactoryProject(UserProjectReference projectReference) {
         // get project attributes
-        Project projectDescription = projectReference.getCodenvy().project().getProject(projectReference.getInnerReference().workspaceId(), projectReference.getInnerReference()).execute();
+        Project projectDescription = getMultiRemoteCodenvy().getProjectDescription(projectReference);
         if (projectDescription == null) {
             Ansi buffer = Ansi.ansi();
             buffer.fg(RED);
@@ -68,6 +68,8 @@ public class DeleteProjectCommand extends AbsCommand {
         final ProjectReference projectToDestroy = project.getInnerReference();
 
         project.getCodenvy().project().deleteResources(projectToDestroy, "").execute();
+        getMultiRemoteCodenvy().discardWarmUp();
+        getMultiRemoteCodenvy().invalidateProject(project);
         System.out.println(String.format("The project %s has been deleted", projectToDestroy.name()));
 
 
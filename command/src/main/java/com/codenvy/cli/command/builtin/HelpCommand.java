@@ -52,8 +52,9 @@ public class HelpCommand extends AbsCommand {
                                        .withEntry(color("logout"), "Logout to a remote Codenvy cloud")
                                        .withEntry(color("list"), "List workspaces, projects and processes")
                                        .withEntry(color("clone-local"), "Clone a remote Codenvy project to a local directory")
-                                       .withEntry(color("build"), "Build a project")
-                                       .withEntry(color("run"), "Run a project")
+                                       .withEntry(color("build"), "Build one or more projects")
+                                       .withEntry(color("artifact"), "Download the artifact of a successful build")
+                                       .withEntry(color("run"), "Run one or more projects")
                                        .withEntry(color("logs"), "Display output logs for a runner or builder")
                                        .withEntry(color("info"), "Display information for a project, runner, or builder")
                                        .withEntry(color("open"), "Starts a browser session to access a project, builder or runner")
@@ -12,6 +12,8 @@ package com.codenvy.cli.command.builtin;
 
 import jline.console.ConsoleReader;
 
+import com.codenvy.cli.command.builtin.helper.LRUCache;
+import com.codenvy.cli.command.builtin.helper.RemoteTaskExecutor;
 import com.codenvy.cli.command.builtin.model.UserBuilderStatus;
 import com.codenvy.cli.command.builtin.model.UserProjectReference;
 import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
@@ -24,10 +26,18 @@ import org.fusesource.jansi.Ansi;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
 
 import static com.codenvy.cli.command.builtin.helper.PrettyPrintHelper.prettyPrint;
 import static com.codenvy.cli.command.builtin.helper.PrettyPrintHelper.prettyPrintState;
+import static com.codenvy.cli.command.builtin.util.ascii.FormatterMode.CSV;
+import static java.lang.String.format;
+import static org.fusesource.jansi.Ansi.Color.RED;
 
 /**
  * List command.
@@ -47,6 +57,9 @@ public class ListCommand extends AbsCommand {
     @Option(name = "--remote", description = "Restrict list to this given remote codenvy", required = false)
     private String remoteName;
 
+    @Option(name = "--parallel", description = "Maximum number of concurrent requests on each remote in verbose mode")
+    private int parallel;
+
     /**
      * Prints the current projects per workspace
      */
@@ -89,22 +102,21 @@ public class ListCommand extends AbsCommand {
         List<String> builderIDs = new ArrayList<>();
         List<String> permissions = new ArrayList<>();
 
-        int count = 0;
-        for (UserProjectReference project : projects) {
+        // get all runners and builders of the projects
+        ProjectDetails[] projectDetails = null;
+        if (verbose) {
+            projectDetails = collectDetails(projects);
+        }
 
-            // get all runners and builders for this project
-            if (isProgressEnabled()) {
-                count++;
-                String percent = (count * 100) / projects.size() + "/100";
-                new ConsoleReader().resetPromptLine("Collecting projects data...", percent, percent.length());
-            }
+        for (int index = 0; index < projects.size(); index++) {
+            UserProjectReference project = projects.get(index);
             List<UserRunnerStatus> runners;
             List<UserBuilderStatus> builders;
             List<String> userPermissions;
-            if (verbose) {
-                 runners = getMultiRemoteCodenvy().getRunners(project);
-                 builders = getMultiRemoteCodenvy().getBuilders(project);
-                userPermissions = getMultiRemoteCodenvy().getProjectPermissions(project);
+            if (projectDetails != null && projectDetails[index] != null) {
+                runners = projectDetails[index].runners;
+                builders = projectDetails[index].builders;
+                userPermissions = projectDetails[index].permissions;
             } else {
                 runners = Collections.emptyList();
                 builders = Collections.emptyList();
@@ -179,8 +191,102 @@ public class ListCommand extends AbsCommand {
 
         System.out.println(asciiArray.toAscii());
 
+        // verbose mode : show how often the project data were taken from the caches of the session, CSV output is kept as is
+        if (verbose && getFormatterMode() != CSV) {
+            LRUCache<?, ?> permissionsCache = getMultiRemoteCodenvy().getPermissionsCache();
+            LRUCache<?, ?> projectCache = getMultiRemoteCodenvy().getProjectCache();
+            System.out.println(format("Cache: permissions %d hits/%d misses, descriptions %d hits/%d misses",
+                                      permissionsCache.getHits(), permissionsCache.getMisses(), projectCache.getHits(),
+                                      projectCache.getMisses()));
+        }
+
         return null;
     }
 
+    /**
+     * Fetch the runners, builders and permissions of the projects concurrently, with a limited number of requests on each remote.
+     * @param projects the projects
+     * @return the details of each project, at the same index than the project. Details are null if they can't be fetched.
+     */
+    protected ProjectDetails[] collectDetails(final List<UserProjectReference> projects) throws IOException {
+        final ProjectDetails[] projectDetails = new ProjectDetails[projects.size()];
+        final MultiRemoteCodenvy multiRemoteCodenvy = getMultiRemoteCodenvy();
+
+        // no more threads than the requests that may run at the same time on the remotes of the projects
+        int perRemoteLimit = parallel > 0 ? parallel : RemoteTaskExecutor.DEFAULT_PER_REMOTE_LIMIT;
+        Set<String> remotes = new HashSet<>();
+        for (UserProjectReference project : projects) {
+            remotes.add(project.getWorkspace().getRemote());
+        }
+        int threads = (int)Math.min(RemoteTaskExecutor.DEFAULT_THREADS, (long)Math.max(1, remotes.size()) * perRemoteLimit);
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(threads, perRemoteLimit);
+        try {
+            CompletionService<Integer> completionService = executor.newCompletionService();
+            for (int i = 0; i < projects.size(); i++) {
+                final int index = i;
+                final UserProjectReference project = projects.get(i);
+                executor.submit(completionService, project.getWorkspace().getRemote(), new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        projectDetails[index] = new ProjectDetails(multiRemoteCodenvy.getRunners(project),
+                                                                   multiRemoteCodenvy.getBuilders(project),
+                                                                   multiRemoteCodenvy.getProjectPermissions(project));
+                        return index;
+                    }
+                });
+            }
+
+            // progress is given by the completed projects
+            for (int count = 1; count <= projects.size(); count++) {
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    if (isStackTraceEnabled()) {
+                        throw new IllegalStateException("Unable to collect projects data", e.getCause());
+                    }
+                    Ansi buffer = Ansi.ansi();
+                    buffer.fg(RED);
+                    buffer.a("Unable to collect projects data: ").a(e.getCause().getMessage());
+                    buffer.reset();
+                    System.err.println(buffer.toString());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while collecting projects data", e);
+                }
+                if (isProgressEnabled()) {
+                    showProgress(count, projects.size());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return projectDetails;
+    }
+
+    /**
+     * Show how many projects have their data collected.
+     * @param completed the number of projects whose data have been collected
+     * @param total the number of projects
+     */
+    protected void showProgress(int completed, int total) throws IOException {
+        String percent = (completed * 100) / total + "/100";
+        new ConsoleReader().resetPromptLine("Collecting projects data...", percent, percent.length());
+    }
+
+    /**
+     * Runners, builders and permissions of a project.
+     */
+    protected static class ProjectDetails {
+        private final List<UserRunnerStatus>  runners;
+        private final List<UserBuilderStatus> builders;
+        private final List<String>            permissions;
+
+        protected ProjectDetails(List<UserRunnerStatus> runners, List<UserBuilderStatus> builders, List<String> permissions) {
+            this.runners = runners;
+            this.builders = builders;
+            this.permissions = permissions;
+        }
+    }
+
 
 }
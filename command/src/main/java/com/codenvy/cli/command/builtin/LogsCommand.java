@@ -10,18 +10,33 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin;
 
+import com.codenvy.cli.command.builtin.helper.RemoteTaskExecutor;
 import com.codenvy.cli.command.builtin.model.UserBuilderStatus;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
 import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
 import com.codenvy.client.model.BuilderState;
 import com.codenvy.client.model.RunnerState;
 
 import org.apache.karaf.shell.commands.Argument;
 import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
 import org.fusesource.jansi.Ansi;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static com.codenvy.cli.command.builtin.MultiRemoteCodenvy.checkOnlyOne;
+import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD;
+import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD_OFF;
 import static org.fusesource.jansi.Ansi.Color.RED;
 
 /**
@@ -37,6 +52,18 @@ public class LogsCommand extends AbsCommand {
     @Argument(name = "id", description = "Specify the runner/builder ID", required = false, multiValued = false)
     private String processID;
 
+    /**
+     * Regular expression to search in the logs of all the runners and builders.
+     */
+    @Option(name = "--grep", description = "Search the given regular expression in the logs of all runners and builders")
+    private String grep;
+
+    /**
+     * Stop the search when this number of matching lines has been found.
+     */
+    @Option(name = "--max-matches", description = "Stop the search once the given number of matching lines has been found")
+    private int maxMatches;
+
     /**
      * Execute the current command
      */
@@ -48,6 +75,12 @@ public class LogsCommand extends AbsCommand {
             return null;
         }
 
+        // search mode
+        if (grep != null) {
+            grepLogs();
+            return null;
+        }
+
         // do we have the process ID ?
         if (processID == null) {
             Ansi buffer = Ansi.ansi();
@@ -148,5 +181,258 @@ public class LogsCommand extends AbsCommand {
 
     }
 
-}
 
+    /**
+     * Search the given pattern in the logs of all runners and builders of all remotes.
+     * Processes of each project are resolved concurrently and logs are searched as soon as they are retrieved.
+     */
+    protected void grepLogs() throws InterruptedException {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(grep);
+        } catch (PatternSyntaxException e) {
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("Invalid regular expression '").a(grep).a("': ").a(e.getDescription());
+            buffer.reset();
+            System.out.println(buffer.toString());
+            return;
+        }
+
+        List<UserProjectReference> projects = getMultiRemoteCodenvy().getProjects();
+        if (projects.isEmpty()) {
+            System.out.println("No projects");
+            return;
+        }
+
+        RemoteTaskExecutor executor = new RemoteTaskExecutor();
+        int matches = 0;
+        int searchedLogs = 0;
+        try {
+            CompletionService<SearchResult> completionService = executor.newCompletionService();
+
+            // first resolve runners and builders of each project
+            int pending = 0;
+            for (UserProjectReference project : projects) {
+                executor.submit(completionService, project.getWorkspace().getRemote(), new RunnersLookup(project));
+                executor.submit(completionService, project.getWorkspace().getRemote(), new BuildersLookup(project));
+                pending += 2;
+            }
+
+            // then consume results in completion order : processes found are submitted for log retrieval, logs are searched
+            while (pending > 0 && !isMaxMatchesReached(matches)) {
+                SearchResult searchResult;
+                try {
+                    searchResult = completionService.take().get();
+                } catch (ExecutionException e) {
+                    if (isStackTraceEnabled()) {
+                        throw new IllegalStateException("Unable to search in logs", e.getCause());
+                    }
+                    Ansi buffer = Ansi.ansi();
+                    buffer.fg(RED);
+                    buffer.a("Unable to search in logs: ").a(e.getCause().getMessage());
+                    buffer.reset();
+                    System.err.println(buffer.toString());
+                    continue;
+                } finally {
+                    pending--;
+                }
+
+                for (LogSource logSource : searchResult.getLogSources()) {
+                    executor.submit(completionService, logSource.getRemote(), logSource);
+                    pending++;
+                }
+
+                if (searchResult.getLog() != null) {
+                    searchedLogs++;
+                    matches += search(pattern, searchResult.getLogSource(), searchResult.getLog(), matches);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (isMaxMatchesReached(matches)) {
+            System.out.println(String.format("Search stopped after %d matching lines", matches));
+        } else {
+            System.out.println(String.format("%d matching lines found in %d logs", matches, searchedLogs));
+        }
+    }
+
+    /**
+     * Print the lines of the log matching the given pattern
+     * @param pattern the pattern to search
+     * @param logSource the process that produced the log
+     * @param log the content of the log
+     * @param previousMatches the number of matching lines already printed
+     * @return the number of matching lines printed
+     */
+    protected int search(Pattern pattern, LogSource logSource, String log, int previousMatches) {
+        int matches = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(log))) {
+            String line;
+            while ((line = reader.readLine()) != null && !isMaxMatchesReached(previousMatches + matches)) {
+                if (pattern.matcher(line).find()) {
+                    UserProjectReference project = logSource.getProject();
+                    Ansi buffer = Ansi.ansi();
+                    buffer.a(INTENSITY_BOLD).a(logSource.getId()).a(INTENSITY_BOLD_OFF).a(" ").a(project.name()).a(" (")
+                          .a(project.getWorkspace().name()).a("@").a(project.getWorkspace().getRemote()).a("): ").a(line);
+                    System.out.println(buffer.toString());
+                    matches++;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the log", e);
+        }
+        return matches;
+    }
+
+    protected boolean isMaxMatchesReached(int matches) {
+        return maxMatches > 0 && matches >= maxMatches;
+    }
+
+    /**
+     * Result of a search task : either new processes to search or the log of a process.
+     */
+    private static class SearchResult {
+        private final List<LogSource> logSources;
+        private final LogSource       logSource;
+        private final String          log;
+
+        SearchResult(List<LogSource> logSources) {
+            this.logSources = logSources;
+            this.logSource = null;
+            this.log = null;
+        }
+
+        SearchResult(LogSource logSource, String log) {
+            this.logSources = Collections.emptyList();
+            this.logSource = logSource;
+            this.log = log;
+        }
+
+        List<LogSource> getLogSources() {
+            return logSources;
+        }
+
+        LogSource getLogSource() {
+            return logSource;
+        }
+
+        String getLog() {
+            return log;
+        }
+    }
+
+    /**
+     * Find the runners of a project having logs.
+     */
+    private class RunnersLookup implements Callable<SearchResult> {
+        private final UserProjectReference project;
+
+        RunnersLookup(UserProjectReference project) {
+            this.project = project;
+        }
+
+        @Override
+        public SearchResult call() {
+            List<LogSource> logSources = new ArrayList<>();
+            for (UserRunnerStatus runnerStatus : getMultiRemoteCodenvy().getRunners(project)) {
+                RunnerState state = runnerStatus.getInnerStatus().status();
+                if (state == RunnerState.RUNNING || state == RunnerState.STOPPED) {
+                    logSources.add(new RunnerLogSource(runnerStatus));
+                }
+            }
+            return new SearchResult(logSources);
+        }
+    }
+
+    /**
+     * Find the builders of a project having logs.
+     */
+    private class BuildersLookup implements Callable<SearchResult> {
+        private final UserProjectReference project;
+
+        BuildersLookup(UserProjectReference project) {
+            this.project = project;
+        }
+
+        @Override
+        public SearchResult call() {
+            List<LogSource> logSources = new ArrayList<>();
+            for (UserBuilderStatus builderStatus : getMultiRemoteCodenvy().getBuilders(project)) {
+                if (builderStatus.getInnerStatus().status() != BuilderState.IN_QUEUE) {
+                    logSources.add(new BuilderLogSource(builderStatus));
+                }
+            }
+            return new SearchResult(logSources);
+        }
+    }
+
+    /**
+     * A process for which the log can be retrieved.
+     */
+    private abstract static class LogSource implements Callable<SearchResult> {
+        abstract String getId();
+
+        abstract UserProjectReference getProject();
+
+        abstract String getLog();
+
+        String getRemote() {
+            return getProject().getWorkspace().getRemote();
+        }
+
+        @Override
+        public SearchResult call() {
+            return new SearchResult(this, getLog());
+        }
+    }
+
+    private static class RunnerLogSource extends LogSource {
+        private final UserRunnerStatus status;
+
+        RunnerLogSource(UserRunnerStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        String getId() {
+            return status.shortId();
+        }
+
+        @Override
+        UserProjectReference getProject() {
+            return status.getProject();
+        }
+
+        @Override
+        String getLog() {
+            return getProject().getCodenvy().runner().logs(getProject().getInnerReference(), status.getInnerStatus().processId()).execute();
+        }
+    }
+
+    private static class BuilderLogSource extends LogSource {
+        private final UserBuilderStatus status;
+
+        BuilderLogSource(UserBuilderStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        String getId() {
+            return status.shortId();
+        }
+
+        @Override
+        UserProjectReference getProject() {
+            return status.getProject();
+        }
+
+        @Override
+        String getLog() {
+            return getProject().getCodenvy().builder().logs(getProject().getInnerReference(), status.getInnerStatus().taskId()).execute();
+        }
+    }
+
+}
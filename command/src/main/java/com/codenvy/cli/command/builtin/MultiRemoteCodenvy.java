@@ -11,6 +11,9 @@
 package com.codenvy.cli.command.builtin;
 
 import com.codenvy.cli.command.builtin.helper.BeforeAfterAction;
+import com.codenvy.cli.command.builtin.helper.LRUCache;
+import com.codenvy.cli.command.builtin.helper.RemoteTaskExecutor;
+import com.codenvy.cli.command.builtin.helper.SingleFlight;
 import com.codenvy.cli.command.builtin.model.DefaultUserBuilderStatus;
 import com.codenvy.cli.command.builtin.model.DefaultUserProject;
 import com.codenvy.cli.command.builtin.model.DefaultUserProjectReference;
@@ -26,9 +29,12 @@ import com.codenvy.cli.command.builtin.util.ascii.AsciiForm;
 import com.codenvy.cli.command.builtin.util.ascii.DefaultAsciiArray;
 import com.codenvy.cli.command.builtin.util.ascii.DefaultAsciiForm;
 import com.codenvy.cli.command.builtin.util.ascii.FormatterMode;
+import com.codenvy.cli.command.builtin.util.download.RequestSigner;
 import com.codenvy.cli.command.builtin.util.metadata.CodenvyMetadata;
 import com.codenvy.cli.command.builtin.util.zip.ZipUtils;
 import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.codenvy.cli.preferences.PreferencesListener;
 import com.codenvy.cli.security.PreferencesDataStore;
 import com.codenvy.cli.security.RemoteCredentials;
 import com.codenvy.cli.security.TokenRetrieverDatastore;
@@ -56,21 +62,32 @@ import org.fusesource.jansi.Ansi;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.codenvy.cli.command.builtin.util.ascii.FormatterMode.MODERN;
 import static java.lang.String.format;
@@ -89,6 +106,32 @@ public class MultiRemoteCodenvy {
      */
     protected static final String JSON_FILE_EXTENSION = ".json";
 
+    /**
+     * Delay in milliseconds after the start of a warm-up during which its projects can be used. Projects created elsewhere during
+     * this delay are not listed by the first command, so it only covers the time taken to type it.
+     */
+    protected static final long WARM_UP_VALIDITY = 10 * 1000;
+
+    /**
+     * Maximum time in milliseconds to wait for the projects of the warm-up before fetching them again.
+     */
+    protected static final long WARM_UP_TIMEOUT = 5 * 1000;
+
+    /**
+     * Maximum number of project descriptions kept in the cache.
+     */
+    protected static final int PROJECT_CACHE_SIZE = 256;
+
+    /**
+     * Delay in milliseconds during which a project description is taken from the cache.
+     */
+    protected static final long PROJECT_CACHE_TIME_TO_LIVE = 30 * 1000;
+
+    /**
+     * Delay in milliseconds during which the permissions of a project are taken from the cache.
+     */
+    protected static final long PERMISSIONS_TIME_TO_LIVE = 5 * 60 * 1000;
+
     public static enum Importer {
         GIT, ZIP;
     }
@@ -97,9 +140,54 @@ public class MultiRemoteCodenvy {
 
     private CommandSession session;
 
-    private ConcurrentMap<String, Codenvy> readyRemotes;
+    /**
+     * Remotes having a token, their clients are built on first use.
+     */
+    private ConcurrentMap<String, CodenvyHolder> readyRemotes;
     private ConcurrentMap<String, Remote>  availableRemotes;
 
+    /**
+     * Name of the default remote among the available remotes, null if there is none.
+     */
+    private volatile String defaultRemoteName;
+
+    /**
+     * Projects of the ready remotes fetched in background by {@link #warmUp()}. Each entry is used at most once.
+     */
+    private ConcurrentMap<String, Future<List<UserProjectReference>>> warmProjects;
+
+    /**
+     * Time of the last warm-up.
+     */
+    private volatile long warmUpTime;
+
+    /**
+     * Project listings being fetched, by remote and visibility, shared by the callers asking for them at the same time.
+     */
+    private final SingleFlight<List<Object>, List<UserProjectReference>> projectsRequests;
+
+    /**
+     * Project descriptions being fetched, by remote, workspace and project.
+     */
+    private final SingleFlight<List<String>, Project> projectRequests;
+
+    /**
+     * Permissions of the projects, by remote, workspace and project. They are kept longer than the descriptions as they rarely
+     * change, and they are dropped when remotes are reloaded, for example after a login with another user.
+     */
+    private final LRUCache<List<String>, List<String>> projectPermissions;
+
+    /**
+     * Recently fetched project descriptions, by remote, workspace and project.
+     */
+    private final LRUCache<List<String>, Project> projectDescriptions;
+
+    /**
+     * Number of invalidations of the project caches. A project fetched while a project was invalidated is not cached, as it may
+     * be outdated.
+     */
+    private final AtomicLong projectInvalidations;
+
     private Preferences globalPreferences;
 
     public MultiRemoteCodenvy(CodenvyClient codenvyClient, Preferences globalPreferences, CommandSession session) {
@@ -108,12 +196,31 @@ public class MultiRemoteCodenvy {
         this.session = session;
         this.readyRemotes = new ConcurrentHashMap<>();
         this.availableRemotes = new ConcurrentHashMap<>();
+        this.warmProjects = new ConcurrentHashMap<>();
+        this.projectsRequests = new SingleFlight<>();
+        this.projectRequests = new SingleFlight<>();
+        this.projectPermissions = new LRUCache<>(PROJECT_CACHE_SIZE, PERMISSIONS_TIME_TO_LIVE);
+        this.projectDescriptions = new LRUCache<>(PROJECT_CACHE_SIZE, PROJECT_CACHE_TIME_TO_LIVE);
+        this.projectInvalidations = new AtomicLong();
         init();
+
+        // remotes changed by other processes are updated one by one
+        Preferences remotesPreferences = globalPreferences.path("remotes");
+        if (remotesPreferences != null) {
+            remotesPreferences.addListener(new PreferencesListener() {
+                @Override
+                public void changed(Preferences preferences, String remote) {
+                    refreshRemote(remote);
+                }
+            });
+        }
     }
 
     protected void init() {
         readyRemotes.clear();
         availableRemotes.clear();
+        defaultRemoteName = null;
+        warmProjects.clear();
         // now read remotes and add a new datastore for each env
         Map preferencesRemotes = globalPreferences.get("remotes", Map.class);
         if (preferencesRemotes != null) {
@@ -121,33 +228,69 @@ public class MultiRemoteCodenvy {
             Preferences remotesPreferences = globalPreferences.path("remotes");
             while (remoteIterator.hasNext()) {
                 String remote = remoteIterator.next();
-                // create store
-                PreferencesDataStore preferencesDataStore = new PreferencesDataStore(remotesPreferences, remote, codenvyClient);
-
-                // read remote
-                Remote remoteData = remotesPreferences.get(remote, Remote.class);
-                RemoteCredentials remoteCredentials = remotesPreferences.get(remote, RemoteCredentials.class);
-
-                // If token is available, add it
-                if (!remoteCredentials.getToken().isEmpty()) {
-                    // add remote env
-                    // Manage credentials
-                    Codenvy codenvy = codenvyClient.newCodenvyBuilder(remoteData.getUrl(), remoteCredentials.getUsername())
-                                                   .withCredentialsProvider(preferencesDataStore)
-                                                   .withCredentialsStoreFactory(preferencesDataStore)
-                                                   .build();
-                    readyRemotes.put(remote, codenvy);
-                }
+                loadRemote(remotesPreferences, remote);
+            }
+        }
+    }
+
+    /**
+     * Read the given remote from the preferences and connect to it if a token is available.
+     */
+    protected void loadRemote(Preferences remotesPreferences, String remote) {
+        // create store
+        PreferencesDataStore preferencesDataStore = new PreferencesDataStore(remotesPreferences, remote, codenvyClient);
+        warmProjects.remove(remote);
+        clearProjectCaches(remote);
+
+        // read remote
+        Remote remoteData = remotesPreferences.get(remote, Remote.class);
+        RemoteCredentials remoteCredentials = remotesPreferences.get(remote, RemoteCredentials.class);
+
+        // If token is available, add it
+        if (!remoteCredentials.getToken().isEmpty()) {
+            // add remote env, client is only built when the remote is used
+            readyRemotes.put(remote, new CodenvyHolder(remoteData.getUrl(), remoteCredentials.getUsername(), preferencesDataStore));
+        } else {
+            readyRemotes.remove(remote);
+        }
 
-                availableRemotes.put(remote, remoteData);
+        availableRemotes.put(remote, remoteData);
+        indexDefaultRemote(remote, remoteData);
+    }
+
+    /**
+     * Keep track of the default remote when the given remote is loaded.
+     */
+    protected void indexDefaultRemote(String remote, Remote remoteData) {
+        if (remoteData.isDefaultRemote()) {
+            defaultRemoteName = remote;
+        } else if (remote.equals(defaultRemoteName)) {
+            defaultRemoteName = null;
+        }
+    }
 
+    /**
+     * Update a single remote after a change of its preferences, made by this process or by another one. Its client is built again or
+     * removed, while the clients of the other remotes are kept.
+     */
+    protected void refreshRemote(String remote) {
+        Preferences remotesPreferences = globalPreferences.path("remotes");
+        if (!remotesPreferences.pathExists(remote)) {
+            readyRemotes.remove(remote);
+            availableRemotes.remove(remote);
+            warmProjects.remove(remote);
+            clearProjectCaches(remote);
+            if (remote.equals(defaultRemoteName)) {
+                defaultRemoteName = null;
             }
+            return;
         }
+        loadRemote(remotesPreferences, remote);
     }
 
     protected List<UserProjectReference> getProjects(String remoteName, boolean onlyPublic) {
 
-        Codenvy codenvy = readyRemotes.get(remoteName);
+        Codenvy codenvy = getCodenvy(remoteName);
         if (codenvy == null) {
             Ansi buffer = Ansi.ansi();
             buffer.fg(RED);
@@ -157,6 +300,10 @@ public class MultiRemoteCodenvy {
             return Collections.emptyList();
         }
 
+        List<UserProjectReference> warmedProjects = takeWarmProjects(remoteName, onlyPublic);
+        if (warmedProjects != null) {
+            return warmedProjects;
+        }
         return getProjects(remoteName, codenvy, onlyPublic);
     }
 
@@ -169,12 +316,15 @@ public class MultiRemoteCodenvy {
     protected List<UserProjectReference> getProjects(boolean onlyPublic) {
         List<UserProjectReference> projects = new ArrayList<>();
 
-        Set<Map.Entry<String, Codenvy>> entries = readyRemotes.entrySet();
-        Iterator<Map.Entry<String, Codenvy>> iterator = entries.iterator();
+        Set<Map.Entry<String, CodenvyHolder>> entries = readyRemotes.entrySet();
+        Iterator<Map.Entry<String, CodenvyHolder>> iterator = entries.iterator();
         while (iterator.hasNext()) {
-            Map.Entry<String, Codenvy> entry = iterator.next();
+            Map.Entry<String, CodenvyHolder> entry = iterator.next();
             try {
-                List<UserProjectReference> foundProjects = getProjects(entry.getKey(), entry.getValue(), onlyPublic);
+                List<UserProjectReference> foundProjects = takeWarmProjects(entry.getKey(), onlyPublic);
+                if (foundProjects == null) {
+                    foundProjects = getProjects(entry.getKey(), entry.getValue().get(), onlyPublic);
+                }
                 if (!foundProjects.isEmpty()) {
                     projects.addAll(foundProjects);
                 }
@@ -236,17 +386,29 @@ public class MultiRemoteCodenvy {
     }
 
     /**
-     * Gets list of all projects for the current user
+     * Gets list of all projects for the current user. If the same projects are already being fetched, for example by the completer,
+     * their result is shared instead of sending the requests again.
      *
      * @param codenvy
      *         the codenvy object used to retrieve the data
      * @return the list of projects
      */
-    protected List<UserProjectReference> getProjects(String remote, Codenvy codenvy, boolean onlyPublic) {
-        List<UserProjectReference> projects = new ArrayList<>();
-
-        // For each workspace, search the project and compute
+    protected List<UserProjectReference> getProjects(final String remote, final Codenvy codenvy, final boolean onlyPublic) {
+        List<UserProjectReference> projects = projectsRequests.execute(Arrays.<Object>asList(remote, onlyPublic),
+                                                                       new Callable<List<UserProjectReference>>() {
+                                                                           @Override
+                                                                           public List<UserProjectReference> call() {
+                                                                               return fetchProjects(remote, codenvy, onlyPublic);
+                                                                           }
+                                                                       });
+        // each caller gets its own list
+        return new ArrayList<>(projects);
+    }
 
+    /**
+     * Fetch the projects of all the workspaces of the remote, errors are reported and give no projects.
+     */
+    protected List<UserProjectReference> fetchProjects(String remote, Codenvy codenvy, boolean onlyPublic) {
         WorkspaceClient workspaceClient = codenvy.workspace();
         Request<List<Workspace>> request = workspaceClient.all();
         List<Workspace> readWorkspaces;
@@ -257,15 +419,30 @@ public class MultiRemoteCodenvy {
                 throw e;
             }
             System.err.println("Authentication token has expired on remote '" + remote + "'. Please login again or logout on this remote to refresh the token.");
-            return projects;
+            return new ArrayList<>();
         } catch (CodenvyErrorException | CodenvyException e) {
             if (isStackTraceEnabled()) {
                 throw e;
             }
             System.err.println("Error while retrieving projects on remote '" + remote + "'");
-            return projects;
+            return new ArrayList<>();
         }
+        return getProjects(remote, codenvy, readWorkspaces, onlyPublic);
+    }
 
+    /**
+     * Gets the projects of the given workspaces
+     *
+     * @param codenvy
+     *         the codenvy object used to retrieve the data
+     * @param readWorkspaces
+     *         the workspaces of the remote
+     * @return the list of projects
+     */
+    protected List<UserProjectReference> getProjects(String remote, Codenvy codenvy, List<Workspace> readWorkspaces, boolean onlyPublic) {
+        List<UserProjectReference> projects = new ArrayList<>();
+
+        // For each workspace, search the project and compute
         for (Workspace workspace : readWorkspaces) {
             WorkspaceReference ref = workspace.workspaceReference();
 
@@ -286,13 +463,100 @@ public class MultiRemoteCodenvy {
 
 
     /**
-     * Allows to search a project
+     * Start to connect to the ready remotes in background: their clients are built and their projects are fetched, so the first
+     * command listing the projects doesn't wait for them. This method doesn't wait for the requests and the errors are ignored, the
+     * command using the projects sends the requests again and reports them.
      */
-    protected UserProjectReference getProjectReference(String shortId) {
-        if (shortId == null || shortId.length() < 2) {
-            throw new IllegalArgumentException("The identifier should at least contain two digits");
+    public void warmUp() {
+        if (readyRemotes.isEmpty()) {
+            return;
+        }
+        warmProjects.clear();
+        warmUpTime = System.currentTimeMillis();
+
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(Math.min(readyRemotes.size(), RemoteTaskExecutor.DEFAULT_THREADS), 1);
+        try {
+            for (Map.Entry<String, CodenvyHolder> entry : readyRemotes.entrySet()) {
+                final String remote = entry.getKey();
+                final CodenvyHolder holder = entry.getValue();
+                warmProjects.put(remote, executor.submit(remote, new Callable<List<UserProjectReference>>() {
+                    @Override
+                    public List<UserProjectReference> call() throws Exception {
+                        Codenvy codenvy = holder.get();
+                        return getProjects(remote, codenvy, codenvy.workspace().all().execute(), false);
+                    }
+                }));
+            }
+        } finally {
+            // threads stop once the requests are done
+            executor.shutdown();
         }
+    }
 
+    /**
+     * Forget the projects fetched by the warm-up, for example because projects have been added or removed.
+     */
+    public void discardWarmUp() {
+        warmProjects.clear();
+    }
+
+    /**
+     * Wait for the projects fetched by the warm-up, whether they have been fetched or not.
+     *
+     * @param timeout the maximum time in milliseconds to wait
+     * @return true if all the projects have been fetched, false if the timeout elapsed
+     */
+    protected boolean awaitWarmUp(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Future<List<UserProjectReference>> future : warmProjects.values()) {
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                // error reported by the command using the projects
+            } catch (TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Take the projects of the given remote fetched by the warm-up, waiting for them at most {@link #WARM_UP_TIMEOUT} milliseconds if
+     * they are still being fetched.
+     *
+     * @return the projects or null if they have to be fetched
+     */
+    protected List<UserProjectReference> takeWarmProjects(String remote, boolean onlyPublic) {
+        // warmed projects are kept for a lookup of all the projects, expired ones are never used
+        if (onlyPublic || System.currentTimeMillis() - warmUpTime > WARM_UP_VALIDITY) {
+            return null;
+        }
+        Future<List<UserProjectReference>> future = warmProjects.remove(remote);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(WARM_UP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // fetched again in order to report the error
+            return null;
+        } catch (TimeoutException e) {
+            // slow requests of the warm-up are not waited for, a fresh fetch may be faster
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Allows to search a project
+     */
+    protected UserProjectReference getProjectReference(String shortId) {
+        checkProjectIdentifier(shortId);
 
         // get all projects
         List<UserProjectReference> projects = getProjects();
@@ -302,6 +566,41 @@ public class MultiRemoteCodenvy {
             return null;
         }
 
+        return findProjectReference(projects, shortId);
+    }
+
+    /**
+     * Allows to search several projects while retrieving the projects of the remotes only once
+     * @param shortIds the identifiers of the projects
+     * @return the matching project for each identifier, in the same order. Identifiers without matching project are not in the map
+     */
+    protected Map<String, UserProjectReference> getProjectReferences(Collection<String> shortIds) {
+        for (String shortId : shortIds) {
+            checkProjectIdentifier(shortId);
+        }
+
+        Map<String, UserProjectReference> references = new LinkedHashMap<>();
+        List<UserProjectReference> projects = getProjects();
+        for (String shortId : shortIds) {
+            UserProjectReference project = findProjectReference(projects, shortId);
+            if (project != null) {
+                references.put(shortId, project);
+            }
+        }
+        return references;
+    }
+
+    protected static void checkProjectIdentifier(String shortId) {
+        if (shortId == null || shortId.length() < 2) {
+            throw new IllegalArgumentException("The identifier should at least contain two digits");
+        }
+    }
+
+    /**
+     * Search the project matching the given identifier in the given list.
+     * @return the matching project or null if there is none
+     */
+    protected static UserProjectReference findProjectReference(List<UserProjectReference> projects, String shortId) {
         // now search in the given projects
         List<UserProjectReference> matchingProjects = new ArrayList<>();
         for (UserProjectReference project : projects) {
@@ -320,8 +619,6 @@ public class MultiRemoteCodenvy {
         } else {
             throw new IllegalArgumentException("Too many matching projects. Try with a longer identifier");
         }
-
-
     }
 
 
@@ -329,13 +626,13 @@ public class MultiRemoteCodenvy {
      * Allows to search a project
      */
     protected UserProject getProject(String shortId) {
-       UserProjectReference projectReference = getProjectReference(shortId);
+       final UserProjectReference projectReference = getProjectReference(shortId);
         if (projectReference == null) {
             return null;
         }
 
 
-        Project project = projectReference.getCodenvy().project().getProject(projectReference.getWorkspace().id(), projectReference.getInnerReference()).execute();
+        Project project = getProjectDescription(projectReference);
         if (project == null) {
             return null;
         }
@@ -358,8 +655,53 @@ public class MultiRemoteCodenvy {
     public Map<String, Remote> getAvailableRemotes() {
         return availableRemotes;
     }
+    /**
+     * @return the clients of the remotes having a token, indexed by remote name. Clients are built when they are read from the map,
+     * so iterating on the keys or the entries doesn't build them, only reading the value of an entry does.
+     */
     public Map<String, Codenvy> getReadyRemotes() {
-        return readyRemotes;
+        return new AbstractMap<String, Codenvy>() {
+            @Override
+            public Codenvy get(Object remote) {
+                return remote instanceof String ? getCodenvy((String)remote) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object remote) {
+                return readyRemotes.containsKey(remote);
+            }
+
+            @Override
+            public Set<Entry<String, Codenvy>> entrySet() {
+                return new AbstractSet<Entry<String, Codenvy>>() {
+                    @Override
+                    public Iterator<Entry<String, Codenvy>> iterator() {
+                        final Iterator<Entry<String, CodenvyHolder>> iterator = readyRemotes.entrySet().iterator();
+                        return new Iterator<Entry<String, Codenvy>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Codenvy> next() {
+                                return new ReadyRemoteEntry(iterator.next());
+                            }
+
+                            @Override
+                            public void remove() {
+                                throw new UnsupportedOperationException("Ready remotes can't be removed from this map");
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return readyRemotes.size();
+                    }
+                };
+            }
+        };
     }
 
     public String listRemotes() {
@@ -402,39 +744,32 @@ public class MultiRemoteCodenvy {
         remote.setUrl(url);
         preferencesRemotes.put(name, remote);
 
-        // refresh current links
-        refresh();
+        // load only the new remote
+        loadRemote(preferencesRemotes, name);
 
         return true;
 
     }
 
+    /**
+     * @return a copy of the remote with the given name, null if it doesn't exist. Modifying it doesn't change the registered remote.
+     */
     public Remote getRemote(String remoteName) {
-        // it exists, get it
-        Preferences preferencesRemotes = globalPreferences.path("remotes");
-
-
-        if (!getRemoteNames().contains(remoteName)) {
+        if (remoteName == null) {
             return null;
         }
-
-        return preferencesRemotes.get(remoteName, Remote.class);
+        Remote remote = availableRemotes.get(remoteName);
+        return remote == null ? null : new Remote(remote);
     }
 
 
+    /**
+     * @return a copy of the default remote
+     */
     public Remote getDefaultRemote() {
-        Map preferencesRemotes = globalPreferences.get("remotes", Map.class);
-        if (preferencesRemotes != null) {
-            Iterator<String> remoteIterator = preferencesRemotes.keySet().iterator();
-            Preferences remotesPreferences = globalPreferences.path("remotes");
-            while (remoteIterator.hasNext()) {
-                String remote = remoteIterator.next();
-
-                Remote tmpEnv = remotesPreferences.get(remote, Remote.class);
-                if (tmpEnv.isDefaultRemote()) {
-                    return tmpEnv;
-                }
-            }
+        Remote remote = getRemote(defaultRemoteName);
+        if (remote != null) {
+            return remote;
         }
 
         // No remote is an error case
@@ -442,18 +777,9 @@ public class MultiRemoteCodenvy {
     }
 
     public String getDefaultRemoteName() {
-        Map preferencesRemotes = globalPreferences.get("remotes", Map.class);
-        if (preferencesRemotes != null) {
-            Iterator<String> remoteIterator = preferencesRemotes.keySet().iterator();
-            Preferences remotesPreferences = globalPreferences.path("remotes");
-            while (remoteIterator.hasNext()) {
-                String remote = remoteIterator.next();
-
-                Remote tmpRemote = remotesPreferences.get(remote, Remote.class);
-                if (tmpRemote.isDefaultRemote()) {
-                    return remote;
-                }
-            }
+        String remote = defaultRemoteName;
+        if (remote != null) {
+            return remote;
         }
         // No remote is an error case
         throw new IllegalStateException("No default remote found. Needs to use --remote to specify a remote");
@@ -521,8 +847,8 @@ public class MultiRemoteCodenvy {
         // by merging
         preferencesRemotes.merge(remoteName, remoteCredentials);
 
-        // refresh current links
-        refresh();
+        // reconnect only this remote, clients of the other remotes are kept
+        refreshRemote(remoteName);
 
         return true;
     }
@@ -550,28 +876,29 @@ public class MultiRemoteCodenvy {
             return false;
         }
 
-        // Get current credentials
+        // Get current credentials and disable the token in a single batch
+        final String name = remoteName;
         Preferences preferencesRemotes = globalPreferences.path("remotes");
-        RemoteCredentials remoteCredentials = preferencesRemotes.get(remoteName, RemoteCredentials.class);
+        preferencesRemotes.batch(new PreferencesBatch() {
+            @Override
+            public void apply(Preferences preferences) {
+                RemoteCredentials remoteCredentials = preferences.get(name, RemoteCredentials.class);
 
-        // disable token
-        remoteCredentials.setToken("");
+                // disable token
+                remoteCredentials.setToken("");
 
-        // merge it
-        preferencesRemotes.merge(remoteName, remoteCredentials);
+                // merge it
+                preferences.merge(name, remoteCredentials);
+            }
+        });
 
-        // refresh current links
-        refresh();
+        // disconnect only this remote
+        refreshRemote(name);
 
         return true;
     }
 
 
-    protected void refresh() {
-        init();
-    }
-
-
     protected boolean removeRemote(String name) {
         // check env does exists
         if (!getRemoteNames().contains(name)) {
@@ -591,37 +918,45 @@ public class MultiRemoteCodenvy {
         // delete
         preferencesRemotes.delete(name);
 
-        // refresh current links
-        refresh();
+        // forget only the removed remote
+        refreshRemote(name);
 
         // OK
         return true;
     }
 
-    protected boolean setDefaultRemote(String name) {
+    protected boolean setDefaultRemote(final String name) {
         // check env does exists
         if (!getRemoteNames().contains(name)) {
             System.out.println("The remote with name '" + name + "' does not exists");
             return false;
         }
 
-        // Iterate on each remote, remove default except for the expected one
-        Map preferencesRemotes = globalPreferences.get("remotes", Map.class);
-        if (preferencesRemotes != null) {
-
-            //  Iterate
-            Iterator<String> remoteIterator = preferencesRemotes.keySet().iterator();
-            Preferences remotesPreferences = globalPreferences.path("remotes");
-            while (remoteIterator.hasNext()) {
-                String remote = remoteIterator.next();
-                Remote tmpEnv = remotesPreferences.get(remote, Remote.class);
-                tmpEnv.setDefaultRemote(name.equals(remote));
-                remotesPreferences.merge(remote, tmpEnv);
+        // only the remotes whose flag changes are updated, in a single batch so preferences are saved once
+        final List<String> updatedRemotes = new ArrayList<>();
+        for (Map.Entry<String, Remote> entry : availableRemotes.entrySet()) {
+            if (entry.getValue().isDefaultRemote() != name.equals(entry.getKey())) {
+                updatedRemotes.add(entry.getKey());
             }
         }
+        Preferences remotesPreferences = globalPreferences.path("remotes");
+        remotesPreferences.batch(new PreferencesBatch() {
+            @Override
+            public void apply(Preferences preferences) {
+                for (String remote : updatedRemotes) {
+                    Remote tmpEnv = preferences.get(remote, Remote.class);
+                    tmpEnv.setDefaultRemote(name.equals(remote));
+                    preferences.merge(remote, tmpEnv);
+                }
+            }
+        });
 
-        // refresh current links
-        refresh();
+        // update the registry, clients of the remotes are unchanged
+        for (String remote : updatedRemotes) {
+            Remote remoteData = remotesPreferences.get(remote, Remote.class);
+            availableRemotes.put(remote, remoteData);
+            indexDefaultRemote(remote, remoteData);
+        }
 
         // OK
         return true;
@@ -670,16 +1005,102 @@ public class MultiRemoteCodenvy {
     }
 
     /**
-     * Gets project permissions
-     * @param userProjectReference
-     * @return
+     * Gets the description of the project. Descriptions are kept in a cache for a short time, and the request is shared with the
+     * callers asking for the same project at the same time.
+     */
+    public Project getProjectDescription(final UserProjectReference projectReference) {
+        final List<String> key = getProjectKey(projectReference);
+        Project project = projectDescriptions.get(key);
+        if (project != null) {
+            return project;
+        }
+        // callers coming after an invalidation don't share the request sent before it
+        final long invalidations = projectInvalidations.get();
+        List<String> requestKey = new ArrayList<>(key);
+        requestKey.add(String.valueOf(invalidations));
+        return projectRequests.execute(requestKey, new Callable<Project>() {
+            @Override
+            public Project call() {
+                Project fetchedProject = projectReference.getCodenvy().project().getProject(projectReference.getWorkspace().id(),
+                                                                                            projectReference.getInnerReference()).execute();
+                if (fetchedProject != null && invalidations == projectInvalidations.get()) {
+                    projectDescriptions.put(key, fetchedProject);
+                }
+                return fetchedProject;
+            }
+        });
+    }
+
+    /**
+     * Forget what is known about the project after it has been changed or deleted.
+     */
+    public void invalidateProject(UserProjectReference projectReference) {
+        List<String> key = getProjectKey(projectReference);
+        projectInvalidations.incrementAndGet();
+        projectDescriptions.remove(key);
+        projectPermissions.remove(key);
+    }
+
+    /**
+     * Forget the project descriptions and permissions of the given remote, for example when its user may have changed. The projects of
+     * the other remotes are kept.
+     */
+    protected void clearProjectCaches(final String remote) {
+        projectInvalidations.incrementAndGet();
+        LRUCache.KeyFilter<List<String>> remoteProjects = new LRUCache.KeyFilter<List<String>>() {
+            @Override
+            public boolean accept(List<String> key) {
+                // keys start with the name of the remote
+                return remote.equals(key.get(0));
+            }
+        };
+        projectPermissions.remove(remoteProjects);
+        projectDescriptions.remove(remoteProjects);
+    }
+
+    /**
+     * @return the cache of the project descriptions, giving its hits and misses
+     */
+    public LRUCache<List<String>, Project> getProjectCache() {
+        return projectDescriptions;
+    }
+
+    /**
+     * @return the cache of the project permissions, giving its hits and misses
+     */
+    public LRUCache<List<String>, List<String>> getPermissionsCache() {
+        return projectPermissions;
+    }
+
+    /**
+     * @return the key identifying the project among the projects of all the remotes
+     */
+    protected static List<String> getProjectKey(UserProjectReference projectReference) {
+        return Arrays.asList(projectReference.getWorkspace().getRemote(), projectReference.getWorkspace().id(), projectReference.name());
+    }
+
+    /**
+     * Gets the permissions of the current user on the project. They are kept in a cache for a few minutes.
      */
     public List<String> getProjectPermissions(UserProjectReference userProjectReference) {
-        Project project = userProjectReference.getCodenvy().project().getProject(userProjectReference.getWorkspace().id(), userProjectReference.getInnerReference()).execute();
+        List<String> key = getProjectKey(userProjectReference);
+        List<String> permissions = projectPermissions.get(key);
+        if (permissions != null) {
+            return permissions;
+        }
+
+        long invalidations = projectInvalidations.get();
+        // the client has no request giving only the permissions, the description is shared with the cache of the project descriptions
+        Project project = getProjectDescription(userProjectReference);
         if (project == null) {
             return Collections.emptyList();
         }
-        return project.permissions();
+        permissions = project.permissions() == null ? Collections.<String>emptyList() : Collections.unmodifiableList(
+                new ArrayList<>(project.permissions()));
+        if (invalidations == projectInvalidations.get()) {
+            projectPermissions.put(key, permissions);
+        }
+        return permissions;
     }
 
 
@@ -799,6 +1220,9 @@ public class MultiRemoteCodenvy {
      */
     protected UserProjectReference importProject(UserWorkspace workspace, String name, String param, String importerType, Path configurationPath) {
 
+        // projects fetched by the warm-up are outdated
+        discardWarmUp();
+
         //
         String projectName = name;
 
@@ -835,7 +1259,10 @@ public class MultiRemoteCodenvy {
                     Request<Project> updateRequest = workspace.getCodenvy().project().updateProject(project, file.toPath());
                     beforeAfterAction.execute(updateRequest);
 
-                    return new DefaultUserProjectReference(workspace.getCodenvy(), project, workspace);
+                    UserProjectReference userProjectReference = new DefaultUserProjectReference(workspace.getCodenvy(), project, workspace);
+                    // a deleted project with the same name may still be cached
+                    invalidateProject(userProjectReference);
+                    return userProjectReference;
                 }
 
 
@@ -896,6 +1323,8 @@ public class MultiRemoteCodenvy {
                 storeMetadata(userProjectReference, file);
             }
 
+            // a deleted project with the same name may still be cached
+            invalidateProject(userProjectReference);
             return userProjectReference;
 
 
@@ -992,7 +1421,10 @@ public class MultiRemoteCodenvy {
                 beforeAfterAction.execute(updatedRequest);
             }
 
-            return new DefaultUserProjectReference(workspace.getCodenvy(), project, workspace);
+            UserProjectReference userProjectReference = new DefaultUserProjectReference(workspace.getCodenvy(), project, workspace);
+            // a deleted project with the same name may still be cached
+            invalidateProject(userProjectReference);
+            return userProjectReference;
         }
 
     }
@@ -1010,6 +1442,9 @@ public class MultiRemoteCodenvy {
      */
     protected UserProjectReference createProject(String name, String workspaceName, String remoteName, Path configurationPath) {
 
+        // projects fetched by the warm-up are outdated
+        discardWarmUp();
+
         // Remote ?
         if (remoteName == null) {
             remoteName = getDefaultRemoteName();
@@ -1022,7 +1457,7 @@ public class MultiRemoteCodenvy {
         }
 
         // check if remote is ready
-        Codenvy remoteCodenvy = readyRemotes.get(remoteName);
+        Codenvy remoteCodenvy = getCodenvy(remoteName);
         if (remoteCodenvy == null) {
             System.out.println(format("The remote named %s is not yet available. Need to login first", remoteName));
             return null;
@@ -1089,6 +1524,8 @@ public class MultiRemoteCodenvy {
         remoteCodenvy.project().updateProject(builtUserProjectReference.getInnerReference(), configurationPath);
         System.out.println("done !");
 
+        // a deleted project with the same name may still be cached
+        invalidateProject(builtUserProjectReference);
         return builtUserProjectReference;
 
     }
@@ -1138,8 +1575,35 @@ public class MultiRemoteCodenvy {
     }
 
 
+    /**
+     * @return the client of the given remote, built on first use, or null if the remote has no token
+     */
     protected Codenvy getCodenvy(String remoteName) {
-        return readyRemotes.get(remoteName);
+        CodenvyHolder holder = readyRemotes.get(remoteName);
+        return holder != null ? holder.get() : null;
+    }
+
+    /**
+     * Gets the signer of the requests sent to the given remote outside of its client. Requests are signed with the credentials used by
+     * the client, read from the store of the remote when the request is sent.
+     * @param remoteName the name of the remote
+     * @return the signer or null if the remote is unknown or if we're not logged in
+     */
+    protected RequestSigner getRequestSigner(String remoteName) {
+        final CodenvyHolder holder = readyRemotes.get(remoteName);
+        if (holder == null) {
+            return null;
+        }
+        return new RequestSigner() {
+            @Override
+            public void sign(HttpURLConnection connection) {
+                Credentials credentials = holder.dataStore.get(holder.username);
+                if (credentials != null && credentials.token() != null) {
+                    // not in the URL, so it doesn't end up in the logs of the proxies
+                    connection.setRequestProperty("Authorization", credentials.token().value());
+                }
+            }
+        };
     }
 
 
@@ -1158,4 +1622,79 @@ public class MultiRemoteCodenvy {
         return true;
     }
 
+    /**
+     * Entry of {@link #getReadyRemotes()} building the client of the remote only when its value is read.
+     */
+    private static class ReadyRemoteEntry implements Map.Entry<String, Codenvy> {
+        private final Map.Entry<String, CodenvyHolder> entry;
+
+        private ReadyRemoteEntry(Map.Entry<String, CodenvyHolder> entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public Codenvy getValue() {
+            return entry.getValue().get();
+        }
+
+        @Override
+        public Codenvy setValue(Codenvy value) {
+            throw new UnsupportedOperationException("Ready remotes can't be changed from this map");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>)o;
+            Codenvy value = getValue();
+            return getKey().equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Codenvy value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+
+    /**
+     * Builds the client of a remote the first time it is needed, then always returns the same client.
+     */
+    private class CodenvyHolder {
+        private final String               url;
+        private final String               username;
+        private final PreferencesDataStore dataStore;
+        private volatile Codenvy           codenvy;
+
+        private CodenvyHolder(String url, String username, PreferencesDataStore dataStore) {
+            this.url = url;
+            this.username = username;
+            this.dataStore = dataStore;
+        }
+
+        private Codenvy get() {
+            Codenvy result = codenvy;
+            if (result == null) {
+                synchronized (this) {
+                    result = codenvy;
+                    if (result == null) {
+                        // Manage credentials
+                        result = codenvyClient.newCodenvyBuilder(url, username)
+                                              .withCredentialsProvider(dataStore)
+                                              .withCredentialsStoreFactory(dataStore)
+                                              .build();
+                        codenvy = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -90,6 +90,7 @@ public class PrivacyCommand extends AbsCommand {
 
         // change it
         project.getCodenvy().project().switchVisibility(projectToChangePrivacy, visibility).execute();
+        getMultiRemoteCodenvy().invalidateProject(project);
 
         // Display new flag
         System.out.println(format("Privacy for project %s has been changed to %s", project.name(), visibility));
@@ -18,6 +18,17 @@ public class Remote {
     private boolean defaultRemote = false;
     public String url;
 
+    public Remote() {
+    }
+
+    /**
+     * Build a copy of the given remote.
+     */
+    public Remote(Remote remote) {
+        this.defaultRemote = remote.defaultRemote;
+        this.url = remote.url;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin;
 
+import com.codenvy.cli.command.builtin.batch.BatchJob;
+import com.codenvy.cli.command.builtin.batch.RunBatchJob;
 import com.codenvy.cli.command.builtin.helper.WaitingAction;
 import com.codenvy.cli.command.builtin.helper.WaitingActionCondition;
 import com.codenvy.cli.command.builtin.helper.WaitingActionConditionState;
@@ -32,6 +34,8 @@ import org.apache.karaf.shell.commands.Option;
 import org.apache.karaf.shell.console.SessionProperties;
 import org.fusesource.jansi.Ansi;
 
+import java.util.List;
+
 import static com.codenvy.client.model.RunnerState.CANCELLED;
 import static com.codenvy.client.model.RunnerState.FAILED;
 import static com.codenvy.client.model.RunnerState.RUNNING;
@@ -42,14 +46,14 @@ import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD_OFF;
 import static org.fusesource.jansi.Ansi.Color.RED;
 
 /**
- * Allows to run a given project
+ * Allows to run a given project or several projects in a dependency order
  * @author Florent Benoit
  */
-@Command(scope = "codenvy", name = "run", description = "Run a project")
-public class RunnerCommand extends AbsCommand {
+@Command(scope = "codenvy", name = "run", description = "Run one or more projects")
+public class RunnerCommand extends AbsBatchCommand {
 
-    @Argument(name = "project-id", description = "Specify the project ID to use", required = true, multiValued = false)
-    private String projectId;
+    @Argument(name = "project-id", description = "Specify the project IDs to use, as <project-id>[:<dependency-id>,...]", required = false, multiValued = true)
+    private List<String> projectIds;
 
     @Option(name = "--fg", description = "Run foreground")
     private boolean foreground;
@@ -76,8 +80,14 @@ public class RunnerCommand extends AbsCommand {
             return null;
         }
 
+        // several projects ?
+        if (isBatch(projectIds)) {
+            executeBatch(projectIds);
+            return null;
+        }
+
         // do we have the projectID ?
-        if (projectId == null) {
+        if (projectIds == null || projectIds.isEmpty()) {
             Ansi buffer = Ansi.ansi();
             buffer.fg(RED);
             buffer.a("No projectID has been set");
@@ -86,6 +96,8 @@ public class RunnerCommand extends AbsCommand {
             return null;
         }
 
+        String projectId = projectIds.get(0);
+
         // get project for the given shortID
         UserProjectReference project = getMultiRemoteCodenvy().getProjectReference(projectId);
 
@@ -101,7 +113,7 @@ public class RunnerCommand extends AbsCommand {
         final ProjectReference projectToRun = project.getInnerReference();
 
         // first check if the project has a runner
-        Project projectDescription = project.getCodenvy().project().getProject(projectToRun.workspaceId(), projectToRun).execute();
+        Project projectDescription = getMultiRemoteCodenvy().getProjectDescription(project);
         if (projectDescription != null) {
             if (projectDescription.runners() == null || projectDescription.runners().defaultRunner() == null) {
                 Ansi buffer = Ansi.ansi();
@@ -114,15 +126,7 @@ public class RunnerCommand extends AbsCommand {
             }
         }
 
-        RunOptionsBuilder runOptionsBuilder = getMultiRemoteCodenvy().getRunOptionsBuilder();
-        if (memorySize > 0) {
-            runOptionsBuilder.withMemorySize(memorySize);
-        }
-        if (environment != null) {
-            runOptionsBuilder.withEnvironmentId(environment);
-        }
-
-        RunOptions runOptions = runOptionsBuilder.build();
+        RunOptions runOptions = getRunOptions();
 
 
         // Ok now we have the project, run it
@@ -153,6 +157,29 @@ public class RunnerCommand extends AbsCommand {
         return null;
     }
 
+    /**
+     * @return the options of the runner
+     */
+    protected RunOptions getRunOptions() {
+        RunOptionsBuilder runOptionsBuilder = getMultiRemoteCodenvy().getRunOptionsBuilder();
+        if (memorySize > 0) {
+            runOptionsBuilder.withMemorySize(memorySize);
+        }
+        if (environment != null) {
+            runOptionsBuilder.withEnvironmentId(environment);
+        }
+
+        return runOptionsBuilder.build();
+    }
+
+    /**
+     * Run the given project in a batch
+     */
+    @Override
+    protected BatchJob newBatchJob(String id, UserProjectReference project) {
+        return new RunBatchJob(id, project, getRunOptions());
+    }
+
     /**
      * Run has been launched, as we're in foregroudn mode, we need to wait that the process start
      * @param userRunnerStatus the runner status
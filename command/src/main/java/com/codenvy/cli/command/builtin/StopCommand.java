@@ -10,37 +10,58 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin;
 
+import com.codenvy.cli.command.builtin.helper.RemoteTaskExecutor;
 import com.codenvy.cli.command.builtin.model.DefaultUserRunnerStatus;
 import com.codenvy.cli.command.builtin.model.UserProjectReference;
 import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
+import com.codenvy.client.model.RunnerState;
 import com.codenvy.client.model.RunnerStatus;
 
 import org.apache.karaf.shell.commands.Argument;
 import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
 import org.fusesource.jansi.Ansi;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static com.codenvy.cli.command.builtin.MultiRemoteCodenvy.checkOnlyOne;
 import static org.fusesource.jansi.Ansi.Color.RED;
 
 /**
  * Stop command.
- * This command will stop a  given runner or all the runners of a given project.
+ * This command will stop a  given runner or all the runners of a given project, workspace, remote or of all remotes.
  * @author Florent Benoit
  */
 @Command(scope = "codenvy", name = "stop", description = "Stop one or more runner processes")
 public class StopCommand extends AbsCommand {
 
-    @Argument(name = "id", description = "Specify the runnerID or projectID to use", required = true, multiValued = false)
+    @Argument(name = "id", description = "Specify the runnerID or projectID to use", required = false, multiValued = false)
     private String id;
 
+    @Option(name = "--workspace", description = "Stop all the runners of the projects of the given workspace")
+    private String workspaceName;
+
+    @Option(name = "--remote", description = "Stop all the runners of the given remote")
+    private String remoteName;
+
+    @Option(name = "--all", description = "Stop all the runners of all remotes")
+    private boolean all;
+
+    @Option(name = "--parallel", description = "Maximum number of concurrent stop requests on each remote")
+    private int parallel;
+
 
     /**
      * Prints the current projects per workspace
      */
-    protected Object execute() {
+    protected Object execute() throws InterruptedException {
         init();
 
         // not logged in
@@ -48,11 +69,17 @@ public class StopCommand extends AbsCommand {
             return null;
         }
 
+        // bulk mode
+        if (all || workspaceName != null || remoteName != null) {
+            stopScopeProcesses();
+            return null;
+        }
+
         // do we have the  ID ?
         if (id == null) {
             Ansi buffer = Ansi.ansi();
             buffer.fg(RED);
-            buffer.a("No ID has been defined. It should be a runner or project ID");
+            buffer.a("No ID has been defined. It should be a runner or project ID, or use --workspace, --remote or --all");
             buffer.reset();
             System.out.println(buffer.toString());
             return null;
@@ -106,7 +133,7 @@ public class StopCommand extends AbsCommand {
     }
 
 
-    protected void stopProjectProcesses() {
+    protected void stopProjectProcesses() throws InterruptedException {
         // needs to find all run processes of the project
         UserProjectReference foundProject = getMultiRemoteCodenvy().getProjectReference(id);
 
@@ -115,19 +142,117 @@ public class StopCommand extends AbsCommand {
             return;
         }
 
-        List<String> runnersStopped = new ArrayList<>();
-        List<UserRunnerStatus> statusList = getMultiRemoteCodenvy().getRunners(foundProject);
-        if (statusList.isEmpty()) {
-            System.out.println("No active runners for the given project.");
+        // all the runners of the project are stopped, whatever their state
+        stopProjectsProcesses(Collections.singletonList(foundProject), false, "project");
+    }
+
+    /**
+     * Stop all the runners of the selected workspace, remote or of all the remotes.
+     */
+    protected void stopScopeProcesses() throws InterruptedException {
+        List<UserProjectReference> projects;
+        if (remoteName != null && !all) {
+            projects = getMultiRemoteCodenvy().getProjects(remoteName, false);
+        } else {
+            projects = getMultiRemoteCodenvy().getProjects();
+        }
+
+        // restrict to the given workspace
+        if (workspaceName != null && !all) {
+            Iterator<UserProjectReference> iterator = projects.iterator();
+            while (iterator.hasNext()) {
+                if (!workspaceName.equals(iterator.next().getWorkspace().name())) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (projects.isEmpty()) {
+            System.out.println("No projects found.");
             return;
         }
 
-        for (UserRunnerStatus runnerStatus : statusList) {
-            stopStatus(runnerStatus);
-            runnersStopped.add(runnerStatus.shortId());
+        stopProjectsProcesses(projects, true, "scope");
+    }
+
+    /**
+     * Stop the runners of the given projects.
+     * Runners are first collected for all the projects and then stop requests are all sent concurrently.
+     * @param projects the projects for which runners need to be stopped
+     * @param activeOnly if true, only the NEW or RUNNING runners are stopped
+     * @param scope the description of the selected projects, used in the messages
+     */
+    protected void stopProjectsProcesses(List<UserProjectReference> projects, boolean activeOnly, String scope) throws InterruptedException {
+        int perRemoteLimit = parallel > 0 ? parallel : RemoteTaskExecutor.DEFAULT_PER_REMOTE_LIMIT;
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(RemoteTaskExecutor.DEFAULT_THREADS, perRemoteLimit);
+
+        List<String> runnersStopped = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        try {
+            // collect active runners of each project
+            List<Future<List<UserRunnerStatus>>> runnersFutures = new ArrayList<>();
+            for (final UserProjectReference project : projects) {
+                runnersFutures.add(executor.submit(project.getWorkspace().getRemote(), new Callable<List<UserRunnerStatus>>() {
+                    @Override
+                    public List<UserRunnerStatus> call() {
+                        return getMultiRemoteCodenvy().getRunners(project);
+                    }
+                }));
+            }
+            List<UserRunnerStatus> activeRunners = new ArrayList<>();
+            for (int i = 0; i < runnersFutures.size(); i++) {
+                try {
+                    for (UserRunnerStatus runnerStatus : runnersFutures.get(i).get()) {
+                        RunnerState state = runnerStatus.getInnerStatus().status();
+                        if (!activeOnly || state == RunnerState.NEW || state == RunnerState.RUNNING) {
+                            activeRunners.add(runnerStatus);
+                        }
+                    }
+                } catch (ExecutionException e) {
+                    errors.add(projects.get(i).shortId() + " (" + e.getCause().getMessage() + ")");
+                }
+            }
+
+            if (activeRunners.isEmpty() && errors.isEmpty()) {
+                System.out.println("No active runners for the given " + scope + ".");
+                return;
+            }
+
+            // stop them
+            CompletionService<UserRunnerStatus> completionService = executor.newCompletionService();
+            for (final UserRunnerStatus runnerStatus : activeRunners) {
+                executor.submit(completionService, runnerStatus.getProject().getWorkspace().getRemote(), new Callable<UserRunnerStatus>() {
+                    @Override
+                    public UserRunnerStatus call() {
+                        try {
+                            return stopStatus(runnerStatus);
+                        } catch (RuntimeException e) {
+                            throw new IllegalStateException(runnerStatus.shortId() + " (" + e.getMessage() + ")", e);
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < activeRunners.size(); i++) {
+                try {
+                    runnersStopped.add(completionService.take().get().shortId());
+                } catch (ExecutionException e) {
+                    errors.add(e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
         }
 
-        System.out.println("Runners stopped: " + runnersStopped);
+        if (!runnersStopped.isEmpty()) {
+            System.out.println("Runners stopped: " + runnersStopped);
+        }
+        if (!errors.isEmpty()) {
+            Ansi buffer = Ansi.ansi();
+            buffer.fg(RED);
+            buffer.a("Unable to stop runners: ").a(errors);
+            buffer.reset();
+            System.out.println(buffer.toString());
+        }
 
     }
 
@@ -12,6 +12,8 @@ package com.codenvy.cli.command.builtin;
 
 import org.apache.karaf.shell.commands.Command;
 
+import static com.codenvy.cli.command.builtin.Constants.WARM_UP_PROPERTY;
+
 /**
  * This command will use codenvy subshell and then default commands to codenvy namespace
  * @author Florent Benoit
@@ -35,6 +37,11 @@ public class SwitchToCodenvyCommand extends AbsCommand {
 
         init();
 
+        // connect to the remotes while the user is typing the first command
+        if (!"false".equalsIgnoreCase(System.getProperty(WARM_UP_PROPERTY))) {
+            getMultiRemoteCodenvy().warmUp();
+        }
+
         return null;
     }
 }
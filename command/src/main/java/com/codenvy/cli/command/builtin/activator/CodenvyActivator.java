@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin.activator;
 
+import com.codenvy.cli.preferences.PreferencesAPI;
+
 import org.apache.felix.gogo.commands.Action;
 import org.apache.felix.service.command.CommandSession;
 import org.apache.karaf.shell.commands.CommandWithAction;
@@ -19,9 +21,12 @@ import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
 
+import java.net.URI;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static com.codenvy.cli.command.builtin.Constants.PREFERENCES_URI_SESSION_KEY;
+
 /**
  * Activator of the bundle. when bundle is activated we will listen for commands and then set default shell to codenvy commands.
  * By doing this, this avoid to either have : Karaf with delay console flag or to use command in shell.init scripts that failed as command is not there.
@@ -88,6 +93,22 @@ public class CodenvyActivator implements BundleActivator {
         callAction();
     }
 
+    /**
+     * Callback when a command session ends: the preferences it uses are released.
+     * @param commandSession the session
+     */
+    protected void releaseCommandSession(CommandSession commandSession) {
+        Object preferencesURI = commandSession.get(PREFERENCES_URI_SESSION_KEY);
+        if (preferencesURI instanceof URI) {
+            commandSession.put(PREFERENCES_URI_SESSION_KEY, null);
+            try {
+                PreferencesAPI.releasePreferences((URI)preferencesURI);
+            } catch (IllegalStateException e) {
+                LOGGER.log(Level.WARNING, "Unable to release the preferences of the session", e);
+            }
+        }
+    }
+
     /**
      * Check if we can call the action (if we have both action and command session)
      */
@@ -175,8 +196,10 @@ public class CodenvyActivator implements BundleActivator {
 
         @Override
         public Object addingService(ServiceReference<CommandSession> reference) {
-            setCommandSession(context.getService(reference));
-            return null;
+            CommandSession commandSession = context.getService(reference);
+            setCommandSession(commandSession);
+            // kept by the tracker until the session ends
+            return commandSession;
         }
 
         @Override
@@ -188,6 +211,10 @@ public class CodenvyActivator implements BundleActivator {
         @Override
         public void removedService(ServiceReference reference, Object service) {
             setCommandSession(null);
+            if (service instanceof CommandSession) {
+                releaseCommandSession((CommandSession)service);
+            }
+            context.ungetService(reference);
         }
     }
 
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entry of a batch: a project identifier and the identifiers of the projects it depends on.
+ * The syntax is <code>project-id[: dependency-id ...]</code>, dependencies being separated by spaces or commas.
+ */
+public class BatchEntry {
+
+    private final String projectId;
+
+    private final List<String> dependencies;
+
+    public BatchEntry(String projectId, List<String> dependencies) {
+        this.projectId = projectId;
+        this.dependencies = Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * @return the identifier of the project
+     */
+    public String getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * @return the identifiers of the projects that need to be processed successfully before this one
+     */
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Parse the given entry
+     * @param value the entry like <code>project-id: dependency-id</code>
+     * @return the parsed entry
+     */
+    public static BatchEntry parse(String value) {
+        String projectId = value;
+        List<String> dependencies = new ArrayList<>();
+        int separator = value.indexOf(':');
+        if (separator != -1) {
+            projectId = value.substring(0, separator);
+            String dependenciesValue = value.substring(separator + 1).trim();
+            if (!dependenciesValue.isEmpty()) {
+                dependencies.addAll(Arrays.asList(dependenciesValue.split("[,\\s]+")));
+            }
+        }
+        projectId = projectId.trim();
+        if (projectId.isEmpty()) {
+            throw new IllegalArgumentException("Invalid batch entry '" + value + "', project ID is missing");
+        }
+        return new BatchEntry(projectId, dependencies);
+    }
+
+    /**
+     * Read entries from the given file, one entry per line. Empty lines and lines starting with # are ignored.
+     * @param file the file to read
+     * @return the entries of the file
+     */
+    public static List<BatchEntry> read(Path file) throws IOException {
+        List<BatchEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, Charset.forName("UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                entries.add(parse(line));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return true if the given value is using the syntax defining dependencies
+     */
+    public static boolean hasDependencies(String value) {
+        return value.indexOf(':') != -1;
+    }
+
+}
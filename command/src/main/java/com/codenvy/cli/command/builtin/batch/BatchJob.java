@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A build or a run of a project that is scheduled by the {@link BatchScheduler}.
+ */
+public abstract class BatchJob {
+
+    /**
+     * States of a job.
+     */
+    public static enum State {
+        PENDING, RUNNING, SUCCESSFUL, FAILED, SKIPPED
+    }
+
+    /**
+     * Identifier used to declare the job.
+     */
+    private final String id;
+
+    private final UserProjectReference project;
+
+    /**
+     * Jobs that need to be successful before starting this one.
+     */
+    private final List<BatchJob> dependencies;
+
+    private State state;
+
+    /**
+     * Last message about the job.
+     */
+    private String message;
+
+    protected BatchJob(String id, UserProjectReference project) {
+        this.id = id;
+        this.project = project;
+        this.dependencies = new ArrayList<>();
+        this.state = State.PENDING;
+        this.message = "";
+    }
+
+    /**
+     * Submit the job on the remote.
+     * Implementations need to call {@link #running(String)}, {@link #succeed(String)} or {@link #fail(String)}.
+     */
+    protected abstract void start();
+
+    /**
+     * Refresh the status of the job from the remote.
+     * Implementations need to call {@link #succeed(String)} or {@link #fail(String)} once the job is complete.
+     */
+    protected abstract void poll();
+
+    /**
+     * @return the identifier of the builder or runner, empty if the job is not started
+     */
+    public abstract String getProcessId();
+
+    public String getId() {
+        return id;
+    }
+
+    public UserProjectReference getProject() {
+        return project;
+    }
+
+    /**
+     * @return the name of the remote of the project
+     */
+    public String getRemote() {
+        return project.getWorkspace().getRemote();
+    }
+
+    public List<BatchJob> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    public void addDependency(BatchJob job) {
+        dependencies.add(job);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return true if the job won't change anymore
+     */
+    public boolean isDone() {
+        return state == State.SUCCESSFUL || state == State.FAILED || state == State.SKIPPED;
+    }
+
+    protected void running(String message) {
+        update(State.RUNNING, message);
+    }
+
+    protected void succeed(String message) {
+        update(State.SUCCESSFUL, message);
+    }
+
+    protected void fail(String message) {
+        update(State.FAILED, message);
+    }
+
+    protected void skip(String message) {
+        update(State.SKIPPED, message);
+    }
+
+    private void update(State state, String message) {
+        this.state = state;
+        this.message = message == null ? "" : message;
+    }
+
+}
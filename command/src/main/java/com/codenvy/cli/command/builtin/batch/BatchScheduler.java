@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import com.codenvy.cli.command.builtin.helper.RemoteTaskExecutor;
+
+import org.fusesource.jansi.Ansi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD;
+import static org.fusesource.jansi.Ansi.Attribute.INTENSITY_BOLD_OFF;
+import static org.fusesource.jansi.Ansi.Color.RED;
+
+/**
+ * Schedule several jobs in their dependency order.
+ * A job is started once all its dependencies are successful and if the number of running jobs on its remote is below the limit.
+ * Jobs that are ready at the same time are started concurrently, and a single loop polls the status of all running jobs.
+ */
+public class BatchScheduler {
+
+    /**
+     * Default number of jobs running at the same time on a remote.
+     */
+    public static final int DEFAULT_PARALLEL = 2;
+
+    /**
+     * Delay between two polls of the running jobs.
+     */
+    public static final long POLL_INTERVAL = 2000L;
+
+    private final List<BatchJob> jobs;
+
+    private final int parallel;
+
+    private final boolean failFast;
+
+    private long pollInterval = POLL_INTERVAL;
+
+    /**
+     * Build a new scheduler
+     * @param jobs the jobs to execute, started in this order when they're ready
+     * @param parallel the maximum number of running jobs on a remote
+     * @param failFast if true, no job is started after the first failure and the scheduler stops waiting for running jobs
+     */
+    public BatchScheduler(List<BatchJob> jobs, int parallel, boolean failFast) {
+        if (parallel < 1) {
+            throw new IllegalArgumentException("The number of parallel jobs should be greater than zero");
+        }
+        this.jobs = jobs;
+        this.parallel = parallel;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Defines the delay between two polls of the running jobs.
+     */
+    public BatchScheduler withPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Execute all the jobs.
+     * @return true if all jobs are successful
+     * @throws IllegalArgumentException if there is a cycle in the dependencies
+     */
+    public boolean execute() throws InterruptedException {
+        checkCycles();
+
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(RemoteTaskExecutor.DEFAULT_THREADS, parallel);
+        try {
+            boolean failed = false;
+            while (true) {
+                failed |= startReadyJobs(executor, failed && failFast);
+
+                List<BatchJob> runningJobs = getRunningJobs();
+                if (runningJobs.isEmpty() || (failed && failFast)) {
+                    break;
+                }
+
+                Thread.sleep(pollInterval);
+                failed |= poll(executor, runningJobs);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (BatchJob job : jobs) {
+            if (job.getState() != BatchJob.State.SUCCESSFUL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start all jobs that are ready while respecting the limit of each remote. Jobs that can't be started are skipped.
+     * @param executor the executor starting the jobs
+     * @param skipAll if true, all pending jobs are skipped
+     * @return true if a job has failed to start
+     */
+    protected boolean startReadyJobs(RemoteTaskExecutor executor, boolean skipAll) throws InterruptedException {
+        boolean failed = false;
+        // loop as long as a job is done, as jobs declared before it may now be ready or need to be skipped
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            Map<String, Integer> runningPerRemote = new HashMap<>();
+            for (BatchJob job : getRunningJobs()) {
+                increment(runningPerRemote, job.getRemote());
+            }
+
+            List<BatchJob> readyJobs = new ArrayList<>();
+            for (BatchJob job : jobs) {
+                if (job.getState() != BatchJob.State.PENDING) {
+                    continue;
+                }
+                if (skipAll) {
+                    skip(job, "Skipped after a failure");
+                    continue;
+                }
+
+                // check dependencies
+                boolean ready = true;
+                BatchJob failedDependency = null;
+                for (BatchJob dependency : job.getDependencies()) {
+                    if (dependency.getState() == BatchJob.State.FAILED || dependency.getState() == BatchJob.State.SKIPPED) {
+                        failedDependency = dependency;
+                        break;
+                    }
+                    if (dependency.getState() != BatchJob.State.SUCCESSFUL) {
+                        ready = false;
+                    }
+                }
+                if (failedDependency != null) {
+                    skip(job, "Dependency " + failedDependency.getId() + " was not successful");
+                    changed = true;
+                    continue;
+                }
+
+                Integer running = runningPerRemote.get(job.getRemote());
+                if (!ready || (running != null && running >= parallel)) {
+                    continue;
+                }
+                // counted as running while it is started
+                increment(runningPerRemote, job.getRemote());
+                readyJobs.add(job);
+            }
+
+            for (BatchJob job : start(executor, readyJobs)) {
+                print(job);
+                if (job.getState() != BatchJob.State.RUNNING) {
+                    changed = true;
+                    if (job.getState() == BatchJob.State.FAILED) {
+                        failed = true;
+                        skipAll = failFast;
+                    }
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Start the given jobs concurrently, for example as starting a build may export the sources of the project
+     * @return the started jobs, once they have all been started
+     */
+    protected List<BatchJob> start(RemoteTaskExecutor executor, List<BatchJob> readyJobs) throws InterruptedException {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (final BatchJob job : readyJobs) {
+            futures.add(executor.submit(job.getRemote(), new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        job.start();
+                    } catch (RuntimeException e) {
+                        job.fail(e.getMessage());
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        for (int i = 0; i < readyJobs.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                readyJobs.get(i).fail(e.getCause().getMessage());
+            }
+        }
+        return readyJobs;
+    }
+
+    /**
+     * Poll all the running jobs concurrently
+     * @return true if a job has failed
+     */
+    protected boolean poll(RemoteTaskExecutor executor, List<BatchJob> runningJobs) throws InterruptedException {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (final BatchJob job : runningJobs) {
+            futures.add(executor.submit(job.getRemote(), new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        job.poll();
+                    } catch (RuntimeException e) {
+                        job.fail(e.getMessage());
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        boolean failed = false;
+        for (int i = 0; i < runningJobs.size(); i++) {
+            BatchJob job = runningJobs.get(i);
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                job.fail(e.getCause().getMessage());
+            }
+            if (job.isDone()) {
+                print(job);
+                failed |= job.getState() == BatchJob.State.FAILED;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Ensure that there is no cycle in the dependencies
+     */
+    protected void checkCycles() {
+        Set<BatchJob> checked = new HashSet<>();
+        for (BatchJob job : jobs) {
+            checkCycles(job, new ArrayList<BatchJob>(), checked);
+        }
+    }
+
+    private void checkCycles(BatchJob job, List<BatchJob> path, Set<BatchJob> checked) {
+        if (path.contains(job)) {
+            StringBuilder cycle = new StringBuilder();
+            for (BatchJob pathJob : path.subList(path.indexOf(job), path.size())) {
+                cycle.append(pathJob.getId()).append(" -> ");
+            }
+            cycle.append(job.getId());
+            throw new IllegalArgumentException("Cycle found in the dependencies: " + cycle);
+        }
+        if (!checked.add(job)) {
+            return;
+        }
+        path.add(job);
+        for (BatchJob dependency : job.getDependencies()) {
+            checkCycles(dependency, path, checked);
+        }
+        path.remove(path.size() - 1);
+    }
+
+    protected List<BatchJob> getRunningJobs() {
+        List<BatchJob> runningJobs = new ArrayList<>();
+        for (BatchJob job : jobs) {
+            if (job.getState() == BatchJob.State.RUNNING) {
+                runningJobs.add(job);
+            }
+        }
+        return runningJobs;
+    }
+
+    protected void skip(BatchJob job, String message) {
+        job.skip(message);
+        print(job);
+    }
+
+    /**
+     * Print the current state of the job
+     */
+    protected void print(BatchJob job) {
+        Ansi buffer = Ansi.ansi();
+        buffer.a(INTENSITY_BOLD).a(job.getProject().name()).a(INTENSITY_BOLD_OFF);
+        if (!job.getProcessId().isEmpty()) {
+            buffer.a(" [").a(job.getProcessId()).a("]");
+        }
+        buffer.a(" ");
+        if (job.getState() == BatchJob.State.FAILED) {
+            buffer.fg(RED).a(job.getState()).reset();
+        } else {
+            buffer.a(job.getState());
+        }
+        if (!job.getMessage().isEmpty()) {
+            buffer.a(": ").a(job.getMessage());
+        }
+        System.out.println(buffer.toString());
+    }
+
+    private static void increment(Map<String, Integer> counters, String key) {
+        Integer value = counters.get(key);
+        counters.put(key, value == null ? 1 : value + 1);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import com.codenvy.cli.command.builtin.helper.BuildCache;
+import com.codenvy.cli.command.builtin.model.DefaultUserBuilderStatus;
+import com.codenvy.cli.command.builtin.model.UserBuilderStatus;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.client.model.BuilderState;
+import com.codenvy.client.model.BuilderStatus;
+import com.codenvy.client.model.Link;
+import com.codenvy.client.model.Project;
+
+/**
+ * Build of a project in a batch. Builds of unchanged sources are reused unless forced.
+ */
+public class BuildBatchJob extends BatchJob {
+
+    private final BuildCache buildCache;
+
+    private final boolean force;
+
+    private BuildCache.Build build;
+
+    private UserBuilderStatus builderStatus;
+
+    /**
+     * Build a new job
+     * @param id the identifier used to declare the job
+     * @param project the project to build
+     * @param buildCache the cache of the builds
+     * @param force if true the project is built even if its sources did not change since the last build
+     */
+    public BuildBatchJob(String id, UserProjectReference project, BuildCache buildCache, boolean force) {
+        super(id, project);
+        this.buildCache = buildCache;
+        this.force = force;
+    }
+
+    @Override
+    protected void start() {
+        UserProjectReference project = getProject();
+
+        // first check if the project has a builder
+        Project projectDescription = project.getWorkspace().getMultiRemoteCodenvy().getProjectDescription(project);
+        if (projectDescription != null) {
+            if (projectDescription.builders() == null || projectDescription.builders().defaultBuilder() == null) {
+                fail("No builder defined");
+                return;
+            }
+        }
+
+        build = buildCache.build(project, force);
+        builderStatus = new DefaultUserBuilderStatus(build.getBuilderStatus(), project);
+        if (!build.isReused()) {
+            running("Build task submitted");
+        } else if (BuilderState.SUCCESSFUL == build.getBuilderStatus().status()) {
+            succeed("Sources unchanged since last build. " + getArtifactText());
+        } else {
+            running("Same sources are already being built");
+        }
+    }
+
+    @Override
+    protected void poll() {
+        UserProjectReference project = getProject();
+        BuilderStatus status = project.getCodenvy().builder().status(project.getInnerReference(), builderStatus.getInnerStatus().taskId()).execute();
+        if (status == null) {
+            return;
+        }
+        builderStatus = new DefaultUserBuilderStatus(status, project);
+
+        switch (status.status()) {
+            case SUCCESSFUL:
+                buildCache.succeeded(build, status);
+                succeed(getArtifactText());
+                break;
+            case FAILED:
+                fail("Build failure");
+                break;
+            case CANCELLED:
+                fail("Build cancelled");
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public String getProcessId() {
+        if (builderStatus == null) {
+            return "";
+        }
+        return builderStatus.shortId();
+    }
+
+    protected String getArtifactText() {
+        Link artifactLink = builderStatus.getInnerStatus().getDownloadLink();
+        if (artifactLink == null) {
+            return "No artifact";
+        }
+        return "Artifact URL is '" + artifactLink.href() + "'";
+    }
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import com.codenvy.cli.command.builtin.model.DefaultUserRunnerStatus;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
+import com.codenvy.client.model.Link;
+import com.codenvy.client.model.Project;
+import com.codenvy.client.model.ProjectReference;
+import com.codenvy.client.model.RunnerStatus;
+import com.codenvy.client.model.runner.RunOptions;
+
+/**
+ * Run of a project in a batch. The job is successful once the project is running or has been executed,
+ * so projects depending on it are started after it.
+ */
+public class RunBatchJob extends BatchJob {
+
+    private final RunOptions runOptions;
+
+    private UserRunnerStatus runnerStatus;
+
+    /**
+     * Build a new job
+     * @param id the identifier used to declare the job
+     * @param project the project to run
+     * @param runOptions the options of the runner
+     */
+    public RunBatchJob(String id, UserProjectReference project, RunOptions runOptions) {
+        super(id, project);
+        this.runOptions = runOptions;
+    }
+
+    @Override
+    protected void start() {
+        UserProjectReference project = getProject();
+        ProjectReference projectToRun = project.getInnerReference();
+
+        // first check if the project has a runner
+        Project projectDescription = project.getWorkspace().getMultiRemoteCodenvy().getProjectDescription(project);
+        if (projectDescription != null) {
+            if (projectDescription.runners() == null || projectDescription.runners().defaultRunner() == null) {
+                fail("No runner defined");
+                return;
+            }
+        }
+
+        RunnerStatus status = project.getCodenvy().runner().run(projectToRun, runOptions).execute();
+        runnerStatus = new DefaultUserRunnerStatus(status, project);
+        running("Run task submitted");
+    }
+
+    @Override
+    protected void poll() {
+        UserProjectReference project = getProject();
+        RunnerStatus status = project.getCodenvy().runner().status(project.getInnerReference(), runnerStatus.getInnerStatus().processId()).execute();
+        if (status == null) {
+            return;
+        }
+        runnerStatus = new DefaultUserRunnerStatus(status, project);
+
+        switch (status.status()) {
+            case RUNNING:
+                Link webLink = status.getWebLink();
+                succeed("Running, URL is '" + (webLink == null ? "" : webLink.href()) + "'");
+                break;
+            case STOPPED:
+                succeed("Executed");
+                break;
+            case FAILED:
+                fail("Run failure");
+                break;
+            case CANCELLED:
+                fail("Run cancelled");
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public String getProcessId() {
+        if (runnerStatus == null) {
+            return "";
+        }
+        return runnerStatus.shortId();
+    }
+
+}
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.codenvy.client.CodenvyErrorException;
+import com.codenvy.client.CodenvyException;
+import com.codenvy.client.model.BuilderState;
+import com.codenvy.client.model.BuilderStatus;
+import com.codenvy.client.model.Link;
+import com.codenvy.client.model.Project;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the last build of each project along with a fingerprint of the sources that have been built.
+ * Builds are stored in the preferences under the builds node, indexed by the project ID. Only the most recent builds are kept.
+ */
+public class BuildCache {
+
+    /**
+     * Name of the preferences node storing the builds.
+     */
+    public static final String BUILDS_NODE = "builds";
+
+    /**
+     * Default maximum number of builds kept in the preferences.
+     */
+    public static final int DEFAULT_MAX_BUILDS = 100;
+
+    private final Preferences globalPreferences;
+
+    private final Preferences buildsPreferences;
+
+    private final int maxBuilds;
+
+    public BuildCache(Preferences globalPreferences) {
+        this(globalPreferences, DEFAULT_MAX_BUILDS);
+    }
+
+    public BuildCache(Preferences globalPreferences, int maxBuilds) {
+        this.globalPreferences = globalPreferences;
+        this.buildsPreferences = globalPreferences.path(BUILDS_NODE);
+        this.maxBuilds = maxBuilds;
+    }
+
+    /**
+     * Start the build of the given project, or reuse the build of the same sources if it is successful or still running.
+     * @param project the project to build
+     * @param force if true the project is always built and the sources are not checked
+     * @return the started or reused build
+     */
+    public Build build(UserProjectReference project, boolean force) {
+        String fingerprint = force ? null : getFingerprint(project);
+        if (fingerprint != null) {
+            BuilderStatus reusableBuild = getReusableBuild(project, fingerprint);
+            if (reusableBuild != null) {
+                return new Build(project, reusableBuild, fingerprint, true);
+            }
+        }
+
+        BuilderStatus builderStatus = startBuild(project);
+        if (fingerprint != null) {
+            put(project, fingerprint, builderStatus.taskId(), null);
+        }
+        return new Build(project, builderStatus, fingerprint, false);
+    }
+
+    /**
+     * Ask the remote builder to build the given project.
+     * @return the status of the started build
+     */
+    protected BuilderStatus startBuild(UserProjectReference project) {
+        return project.getCodenvy().builder().build(project.getInnerReference()).execute();
+    }
+
+    /**
+     * Record the artifact of a build that completed successfully, so the same sources are not built again.
+     * @param build the build started or reused by {@link #build(UserProjectReference, boolean)}
+     * @param builderStatus the successful status of the build
+     */
+    public void succeeded(Build build, BuilderStatus builderStatus) {
+        if (build.getFingerprint() == null) {
+            return;
+        }
+        Link artifactLink = builderStatus.getDownloadLink();
+        put(build.getProject(), build.getFingerprint(), builderStatus.taskId(), artifactLink == null ? null : artifactLink.href());
+    }
+
+    /**
+     * Gets a fingerprint of the current sources of the given project. The modification date of the project is given by the project
+     * description, so the sources don't have to be downloaded.
+     * @return the fingerprint or null if it can't be known, in this case the project needs to be built
+     */
+    public String getFingerprint(UserProjectReference project) {
+        Project projectDescription;
+        try {
+            // always ask the remote as the project may have been changed from the IDE
+            projectDescription = project.getCodenvy().project().getProject(project.getWorkspace().id(), project.getInnerReference())
+                                        .execute();
+        } catch (CodenvyErrorException | CodenvyException e) {
+            return null;
+        }
+        if (projectDescription == null || projectDescription.modificationDate() == null) {
+            return null;
+        }
+        return String.valueOf(projectDescription.modificationDate().getTime());
+    }
+
+    /**
+     * @return the last build recorded for the given project or null if there is none
+     */
+    public CachedBuild get(UserProjectReference project) {
+        if (!buildsPreferences.pathExists(project.sha1ID())) {
+            return null;
+        }
+        return buildsPreferences.get(project.sha1ID(), CachedBuild.class);
+    }
+
+    /**
+     * Gets the last build of the given project if it has been done with the same sources.
+     * @return the recorded build or null if sources have changed since the last build
+     */
+    public CachedBuild get(UserProjectReference project, String fingerprint) {
+        CachedBuild cachedBuild = get(project);
+        if (cachedBuild == null || fingerprint == null || !fingerprint.equals(cachedBuild.getFingerprint())) {
+            return null;
+        }
+        return cachedBuild;
+    }
+
+    /**
+     * Record a build of the given project. The oldest builds are forgotten when there are too many of them.
+     * @param project the built project
+     * @param fingerprint the fingerprint of the sources that are built
+     * @param taskId the ID of the builder task
+     * @param artifactLink the link to the artifact, null if the build is not yet complete
+     */
+    public void put(final UserProjectReference project, String fingerprint, long taskId, String artifactLink) {
+        final CachedBuild cachedBuild = new CachedBuild();
+        cachedBuild.setFingerprint(fingerprint);
+        cachedBuild.setTaskId(taskId);
+        // null values can't be stored in the preferences
+        cachedBuild.setArtifactLink(artifactLink == null ? "" : artifactLink);
+        cachedBuild.setDate(currentTime());
+        globalPreferences.batch(new PreferencesBatch() {
+            @Override
+            public void apply(Preferences preferences) {
+                Preferences builds = preferences.path(BUILDS_NODE);
+                builds.put(project.sha1ID(), cachedBuild);
+                prune(preferences, builds);
+            }
+        });
+    }
+
+    /**
+     * Forget the oldest builds until there are no more than the maximum number of builds.
+     */
+    protected void prune(Preferences preferences, Preferences builds) {
+        Map<?, ?> buildsMap = preferences.get(BUILDS_NODE, Map.class);
+        if (buildsMap == null || buildsMap.size() <= maxBuilds) {
+            return;
+        }
+        List<Map.Entry<String, Long>> dates = new ArrayList<>();
+        for (Object id : buildsMap.keySet()) {
+            CachedBuild cachedBuild = builds.get(String.valueOf(id), CachedBuild.class);
+            long date = cachedBuild == null ? 0 : cachedBuild.getDate();
+            dates.add(new AbstractMap.SimpleImmutableEntry<>(String.valueOf(id), date));
+        }
+        Collections.sort(dates, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> entry, Map.Entry<String, Long> otherEntry) {
+                return entry.getValue().compareTo(otherEntry.getValue());
+            }
+        });
+        for (int i = 0; i < dates.size() - maxBuilds; i++) {
+            builds.delete(dates.get(i).getKey());
+        }
+    }
+
+    /**
+     * @return the date recorded with the builds
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the build of the same sources of the given project that is still known by the remote builder.
+     * @param project the project to build
+     * @param fingerprint the fingerprint of the current sources of the project
+     * @return the status of the build if it is successful, queued or in progress, else null
+     */
+    public BuilderStatus getReusableBuild(UserProjectReference project, String fingerprint) {
+        CachedBuild cachedBuild = get(project, fingerprint);
+        if (cachedBuild == null) {
+            return null;
+        }
+
+        BuilderStatus builderStatus;
+        try {
+            builderStatus = project.getCodenvy().builder().status(project.getInnerReference(), cachedBuild.getTaskId()).execute();
+        } catch (CodenvyErrorException | CodenvyException e) {
+            // build is no longer known by the remote
+            remove(project);
+            return null;
+        }
+
+        if (builderStatus == null) {
+            return null;
+        }
+        BuilderState state = builderStatus.status();
+        if (BuilderState.SUCCESSFUL == state || BuilderState.IN_QUEUE == state || BuilderState.IN_PROGRESS == state) {
+            return builderStatus;
+        }
+        return null;
+    }
+
+    /**
+     * Forget the build of the given project
+     */
+    public void remove(UserProjectReference project) {
+        if (buildsPreferences.pathExists(project.sha1ID())) {
+            buildsPreferences.delete(project.sha1ID());
+        }
+    }
+
+    /**
+     * Build of a project started or reused by {@link #build(UserProjectReference, boolean)}.
+     */
+    public static class Build {
+        private final UserProjectReference project;
+        private final BuilderStatus        builderStatus;
+        private final String               fingerprint;
+        private final boolean              reused;
+
+        public Build(UserProjectReference project, BuilderStatus builderStatus, String fingerprint, boolean reused) {
+            this.project = project;
+            this.builderStatus = builderStatus;
+            this.fingerprint = fingerprint;
+            this.reused = reused;
+        }
+
+        public UserProjectReference getProject() {
+            return project;
+        }
+
+        /**
+         * @return the status of the build when it has been started or reused
+         */
+        public BuilderStatus getBuilderStatus() {
+            return builderStatus;
+        }
+
+        /**
+         * @return the fingerprint of the built sources, null if it is unknown or if the build has been forced
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return true if a previous build of the same sources is reused
+         */
+        public boolean isReused() {
+            return reused;
+        }
+    }
+
+}
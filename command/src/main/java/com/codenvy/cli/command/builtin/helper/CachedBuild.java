@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+/**
+ * Build recorded in the preferences, allowing to skip the build of a project whose sources did not change.
+ */
+public class CachedBuild {
+
+    private String fingerprint;
+    private long   taskId;
+    private String artifactLink;
+    private long   date;
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(long taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getArtifactLink() {
+        return artifactLink;
+    }
+
+    public void setArtifactLink(String artifactLink) {
+        this.artifactLink = artifactLink;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public void setDate(long date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache keeping the most recently used values for a limited time. Once the cache is full, the least recently used value is
+ * evicted. Hits and misses are counted in order to check the efficiency of the cache.
+ *
+ * @param <K> the key
+ * @param <V> the cached value
+ */
+public class LRUCache<K, V> {
+
+    /**
+     * Maximum number of values.
+     */
+    private final int maxSize;
+
+    /**
+     * Time to live in milliseconds of a value.
+     */
+    private final long timeToLive;
+
+    /**
+     * Values in access order, guarded by this cache.
+     */
+    private final LinkedHashMap<K, CachedValue<V>> values;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    /**
+     * Build a cache
+     * @param maxSize the maximum number of values kept by the cache
+     * @param timeToLive the delay in milliseconds after which a value is no longer used
+     */
+    public LRUCache(final int maxSize, long timeToLive) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the cache should be greater than zero");
+        }
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.values = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * @return the value of the given key, or null if there is no value or if it has expired
+     */
+    public synchronized V get(K key) {
+        CachedValue<V> cachedValue = values.get(key);
+        if (cachedValue != null && System.currentTimeMillis() - cachedValue.time > timeToLive) {
+            values.remove(key);
+            cachedValue = null;
+        }
+        if (cachedValue == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cachedValue.value;
+    }
+
+    /**
+     * Add or replace the value of the given key.
+     */
+    public synchronized void put(K key, V value) {
+        values.put(key, new CachedValue<>(value, System.currentTimeMillis()));
+    }
+
+    /**
+     * Remove the value of the given key, for example because it has been changed.
+     */
+    public synchronized void remove(K key) {
+        values.remove(key);
+    }
+
+    /**
+     * Remove the values whose key is accepted by the given filter.
+     */
+    public synchronized void remove(KeyFilter<K> filter) {
+        Iterator<K> keys = values.keySet().iterator();
+        while (keys.hasNext()) {
+            if (filter.accept(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all the values.
+     */
+    public synchronized void clear() {
+        values.clear();
+    }
+
+    /**
+     * @return the number of values, including the expired ones not yet removed
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of values found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of values not found in the cache or expired
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Selects the keys of the values to remove.
+     */
+    public interface KeyFilter<K> {
+        boolean accept(K key);
+    }
+
+    /**
+     * Value along with the time it has been added.
+     */
+    private static class CachedValue<V> {
+        private final V    value;
+        private final long time;
+
+        private CachedValue(V value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+}
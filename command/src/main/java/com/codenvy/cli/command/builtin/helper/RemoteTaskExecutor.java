@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+
+package com.codenvy.cli.command.builtin.helper;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Execute remote requests concurrently while limiting the number of requests that are running at the same time on a given remote.
+ * The limit is enforced when the tasks are submitted: tasks exceeding the limit of their remote wait in the queue of the remote,
+ * which is drained as soon as a task of the remote completes, so the threads are never blocked by a busy remote.
+ * Threads are daemon threads so a pending request never prevents the CLI from exiting.
+ */
+public class RemoteTaskExecutor {
+
+    /**
+     * Default number of concurrent requests allowed on a single remote.
+     */
+    public static final int DEFAULT_PER_REMOTE_LIMIT = 4;
+
+    /**
+     * Default number of threads used to send requests.
+     */
+    public static final int DEFAULT_THREADS = 16;
+
+    /**
+     * Delay in seconds after which an idle thread stops.
+     */
+    private static final long KEEP_ALIVE = 1;
+
+    /**
+     * Key of the tasks submitted without a remote.
+     */
+    private static final String NO_REMOTE = "";
+
+    /**
+     * Pool used to execute the tasks.
+     */
+    private final ThreadPoolExecutor executorService;
+
+    /**
+     * Maximum of concurrent tasks for each remote.
+     */
+    private final int perRemoteLimit;
+
+    /**
+     * Running and waiting tasks of each remote.
+     */
+    private final ConcurrentMap<String, RemoteQueue> queues;
+
+    /**
+     * Number of submitted tasks that are not yet completed.
+     */
+    private final AtomicInteger pendingTasks;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Build an executor with the default limits.
+     */
+    public RemoteTaskExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_PER_REMOTE_LIMIT);
+    }
+
+    /**
+     * Build an executor
+     * @param threads the maximum number of threads used to send requests, threads are only started when needed
+     * @param perRemoteLimit the maximum number of concurrent requests on a given remote
+     */
+    public RemoteTaskExecutor(int threads, int perRemoteLimit) {
+        if (threads < 1 || perRemoteLimit < 1) {
+            throw new IllegalArgumentException("The number of threads and the limit per remote should be greater than zero");
+        }
+        this.perRemoteLimit = perRemoteLimit;
+        this.queues = new ConcurrentHashMap<>();
+        this.pendingTasks = new AtomicInteger();
+        this.executorService = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                      new DaemonThreadFactory());
+        this.executorService.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submit a task that will be executed on the given remote.
+     * @param remote the name of the remote the task is sending requests to
+     * @param task the task to execute
+     * @return the future of the task
+     */
+    public <T> Future<T> submit(String remote, Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(remote, future);
+        return future;
+    }
+
+    /**
+     * Submit a task that will be executed on the given remote, result will be available in the given completion service.
+     * @param completionService a completion service built with {@link #newCompletionService()}
+     * @param remote the name of the remote the task is sending requests to
+     * @param task the task to execute
+     * @return the future of the task
+     */
+    public <T> Future<T> submit(CompletionService<T> completionService, String remote, Callable<T> task) {
+        if (!(completionService instanceof RemoteCompletionService)) {
+            throw new IllegalArgumentException("The completion service has not been built by this executor");
+        }
+        return ((RemoteCompletionService<T>)completionService).submit(remote, task);
+    }
+
+    /**
+     * @return a new completion service backed by this executor, allowing to consume results as soon as they are available. Tasks
+     * submitted to the completion service without a remote share the limit of a single remote.
+     */
+    public <T> CompletionService<T> newCompletionService() {
+        return new RemoteCompletionService<>();
+    }
+
+    /**
+     * Stop accepting new tasks. Tasks already submitted are still executed, including the ones waiting for their remote.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (pendingTasks.get() == 0) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Stop all tasks, even the running ones. Tasks waiting for their remote are cancelled.
+     */
+    public void shutdownNow() {
+        shutdown = true;
+        for (RemoteQueue queue : queues.values()) {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                if (task instanceof Future) {
+                    ((Future<?>)task).cancel(false);
+                }
+                pendingTasks.decrementAndGet();
+            }
+        }
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Execute the given task once the limit of its remote allows it.
+     */
+    protected void execute(String remote, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor has been shut down");
+        }
+        pendingTasks.incrementAndGet();
+        RemoteQueue queue = getQueue(remote);
+        if (queue.offer(task)) {
+            dispatch(queue, task);
+        }
+    }
+
+    /**
+     * Run the given task in the pool, then the next waiting task of its remote.
+     */
+    private void dispatch(final RemoteQueue queue, final Runnable task) {
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    completed(queue);
+                }
+            }
+        });
+    }
+
+    private void completed(RemoteQueue queue) {
+        Runnable next = queue.next();
+        if (next != null) {
+            dispatch(queue, next);
+        }
+        if (pendingTasks.decrementAndGet() == 0 && shutdown) {
+            executorService.shutdown();
+        }
+    }
+
+    protected RemoteQueue getQueue(String remote) {
+        RemoteQueue queue = queues.get(remote);
+        if (queue == null) {
+            RemoteQueue newQueue = new RemoteQueue();
+            queue = queues.putIfAbsent(remote, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Tasks of a remote waiting for a running one to complete.
+     */
+    private class RemoteQueue {
+        private final Queue<Runnable> waitingTasks = new ArrayDeque<>();
+        private       int             runningTasks;
+
+        /**
+         * @return true if the task can be run now, false if it has been queued
+         */
+        synchronized boolean offer(Runnable task) {
+            if (runningTasks < perRemoteLimit) {
+                runningTasks++;
+                return true;
+            }
+            waitingTasks.add(task);
+            return false;
+        }
+
+        /**
+         * Called once a task is completed
+         * @return the waiting task to run instead of it, or null if there is none
+         */
+        synchronized Runnable next() {
+            Runnable task = waitingTasks.poll();
+            if (task == null) {
+                runningTasks--;
+            }
+            return task;
+        }
+
+        synchronized Runnable poll() {
+            return waitingTasks.poll();
+        }
+    }
+
+    /**
+     * Completion service sending the tasks to their remote queue.
+     */
+    private class RemoteCompletionService<T> implements CompletionService<T> {
+        private final BlockingQueue<Future<T>> completedTasks = new LinkedBlockingQueue<>();
+
+        Future<T> submit(String remote, Callable<T> task) {
+            FutureTask<T> future = new FutureTask<T>(task) {
+                @Override
+                protected void done() {
+                    completedTasks.add(this);
+                }
+            };
+            execute(remote, future);
+            return future;
+        }
+
+        @Override
+        public Future<T> submit(Callable<T> task) {
+            return submit(NO_REMOTE, task);
+        }
+
+        @Override
+        public Future<T> submit(Runnable task, T result) {
+            return submit(NO_REMOTE, Executors.callable(task, result));
+        }
+
+        @Override
+        public Future<T> take() throws InterruptedException {
+            return completedTasks.take();
+        }
+
+        @Override
+        public Future<T> poll() {
+            return completedTasks.poll();
+        }
+
+        @Override
+        public Future<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return completedTasks.poll(timeout, unit);
+        }
+    }
+
+    /**
+     * Build daemon threads.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "codenvy-remote-task-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
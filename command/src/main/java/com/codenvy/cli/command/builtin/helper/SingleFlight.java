@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coalesce identical requests sent at the same time: while a request is running, callers asking for the same key wait for it and
+ * share its result instead of sending the request again. Nothing is kept once the request is done, so a request sent afterwards
+ * always gets a fresh result.
+ *
+ * @param <K> the key identifying a request, for example the remote name and the arguments of the request
+ * @param <V> the result of the request
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Requests that are running, by key.
+     */
+    private final ConcurrentMap<K, FutureTask<V>> inFlight;
+
+    public SingleFlight() {
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Execute the given request in the current thread, or wait for the identical request which is already running.
+     *
+     * @param key the key of the request
+     * @param request the request to execute if there is no identical request running
+     * @return the result of the request
+     */
+    public V execute(K key, Callable<V> request) {
+        FutureTask<V> task = new FutureTask<>(request);
+        FutureTask<V> runningTask = inFlight.putIfAbsent(key, task);
+        if (runningTask == null) {
+            runningTask = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+
+        try {
+            return runningTask.get();
+        } catch (ExecutionException e) {
+            // callers get the error of the request
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("Unable to execute the request", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the request", e);
+        }
+    }
+}
@@ -45,7 +45,7 @@ public final class SHA1 {
      *         the given array of bytes
      * @return a string with hexadecimal values for a pretty print
      */
-    protected static String bytesToHexa(final byte[] b) {
+    public static String bytesToHexa(final byte[] b) {
         char hexDigit[] = {'0', '1', '2', '3', '4', '5', '6', '7',
                            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
         StringBuilder buffer = new StringBuilder();
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.util.download;
+
+import com.codenvy.cli.command.builtin.util.SHA1;
+import com.fasterxml.jackson.core.Base64Variants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Download an artifact into a local file.
+ * If the server is accepting byte ranges, the file is split in chunks that are downloaded in parallel and written at their
+ * position in the file. Else the artifact is downloaded with a single request.
+ * Once downloaded, the content is checked against the Content-MD5 header sent by the server and the expected SHA-1 if any.
+ */
+public class ArtifactDownloader {
+
+    /**
+     * Default number of chunks downloaded in parallel.
+     */
+    public static final int DEFAULT_CHUNKS = 4;
+
+    /**
+     * Below this size, the artifact is downloaded with a single request.
+     */
+    public static final long DEFAULT_MIN_CHUNK_SIZE = 512 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int TIMEOUT = 30 * 1000;
+
+    /**
+     * URL of the artifact.
+     */
+    private final URL url;
+
+    /**
+     * Adds the credentials of the remote to the requests, may be null.
+     */
+    private final RequestSigner signer;
+
+    private int chunks = DEFAULT_CHUNKS;
+
+    private long minChunkSize = DEFAULT_MIN_CHUNK_SIZE;
+
+    private String expectedSha1;
+
+    public ArtifactDownloader(URL url, RequestSigner signer) {
+        this.url = url;
+        this.signer = signer;
+    }
+
+    /**
+     * Defines the maximum number of parallel range requests.
+     */
+    public ArtifactDownloader withChunks(int chunks) {
+        if (chunks < 1) {
+            throw new IllegalArgumentException("The number of chunks should be greater than zero");
+        }
+        this.chunks = chunks;
+        return this;
+    }
+
+    /**
+     * Defines the minimum size of a chunk.
+     */
+    public ArtifactDownloader withMinChunkSize(long minChunkSize) {
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("The size of a chunk should be greater than zero");
+        }
+        this.minChunkSize = minChunkSize;
+        return this;
+    }
+
+    /**
+     * Defines the SHA-1 checksum that the downloaded file needs to match.
+     */
+    public ArtifactDownloader withExpectedSha1(String expectedSha1) {
+        this.expectedSha1 = expectedSha1;
+        return this;
+    }
+
+    /**
+     * Download the artifact in the given file. The file is removed if the download or the checksum verification fails.
+     * @param destination the file to write
+     * @return the result of the download
+     * @throws IOException if the artifact can't be downloaded or if it is corrupted
+     */
+    public DownloadResult download(Path destination) throws IOException {
+        boolean succeed = false;
+        try {
+            DownloadResult result = doDownload(destination);
+            succeed = true;
+            return result;
+        } finally {
+            if (!succeed) {
+                Files.deleteIfExists(destination);
+            }
+        }
+    }
+
+    protected DownloadResult doDownload(Path destination) throws IOException {
+        HttpURLConnection probe = open("HEAD");
+        long length;
+        boolean acceptRanges;
+        String contentMD5;
+        try {
+            int code = probe.getResponseCode();
+            length = probe.getContentLengthLong();
+            acceptRanges = code == HttpURLConnection.HTTP_OK && "bytes".equalsIgnoreCase(probe.getHeaderField("Accept-Ranges"));
+            contentMD5 = probe.getHeaderField("Content-MD5");
+        } finally {
+            probe.disconnect();
+        }
+
+        int usedChunks = 1;
+        if (acceptRanges && length > minChunkSize) {
+            usedChunks = (int)Math.min(chunks, (length + minChunkSize - 1) / minChunkSize);
+        }
+
+        boolean ranged = false;
+        if (usedChunks > 1) {
+            ranged = downloadRanges(destination, length, usedChunks);
+        }
+        if (!ranged) {
+            usedChunks = 1;
+            DownloadedStream downloadedStream = downloadStream(destination);
+            length = downloadedStream.length;
+            if (contentMD5 == null) {
+                contentMD5 = downloadedStream.contentMD5;
+            }
+        }
+
+        // check content
+        MessageDigest sha1 = getDigest("SHA-1");
+        MessageDigest md5 = getDigest("MD5");
+        long size = digest(destination, sha1, md5);
+        if (length >= 0 && size != length) {
+            throw new IOException(format("Downloaded %d bytes while expecting %d bytes", size, length));
+        }
+        String sha1Value = SHA1.bytesToHexa(sha1.digest());
+        byte[] md5Value = md5.digest();
+        if (contentMD5 != null && !contentMD5.trim().equals(Base64Variants.MIME_NO_LINEFEEDS.encode(md5Value))) {
+            throw new IOException("The MD5 checksum of the downloaded artifact doesn't match the one sent by the server");
+        }
+        if (expectedSha1 != null && !expectedSha1.trim().equalsIgnoreCase(sha1Value)) {
+            throw new IOException(format("The SHA-1 checksum of the downloaded artifact is %s while expecting %s", sha1Value, expectedSha1));
+        }
+
+        return new DownloadResult(destination, size, sha1Value, usedChunks);
+    }
+
+    /**
+     * Download all the chunks in parallel.
+     * @return false if the server did not honor a range request, in this case the caller should fall back to a single request
+     */
+    protected boolean downloadRanges(Path destination, long length, int usedChunks) throws IOException {
+        ExecutorService executorService = Executors.newFixedThreadPool(usedChunks);
+        try (FileChannel channel = FileChannel.open(destination, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long chunkSize = (length + usedChunks - 1) / usedChunks;
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (long start = 0; start < length; start += chunkSize) {
+                long end = Math.min(start + chunkSize, length) - 1;
+                futures.add(executorService.submit(new ChunkTask(channel, start, end)));
+            }
+            boolean allRanged = true;
+            for (Future<Boolean> future : futures) {
+                allRanged &= future.get();
+            }
+            return allRanged;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException("Unable to download the artifact", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Download the whole artifact with a single request.
+     */
+    protected DownloadedStream downloadStream(Path destination) throws IOException {
+        HttpURLConnection connection = open("GET");
+        try {
+            checkResponse(connection, HttpURLConnection.HTTP_OK);
+            DownloadedStream downloadedStream = new DownloadedStream();
+            downloadedStream.contentMD5 = connection.getHeaderField("Content-MD5");
+            try (InputStream inputStream = connection.getInputStream();
+                 FileChannel channel = FileChannel.open(destination, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                downloadedStream.length = transfer(inputStream, channel, 0);
+            }
+            return downloadedStream;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Copy the stream in the channel, starting at the given position.
+     * @return the number of bytes that have been written
+     */
+    protected static long transfer(InputStream inputStream, FileChannel channel, long position) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        long current = position;
+        int read;
+        while ((read = inputStream.read(bytes)) != -1) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+            while (buffer.hasRemaining()) {
+                current += channel.write(buffer, current);
+            }
+        }
+        return current - position;
+    }
+
+    protected static long digest(Path file, MessageDigest... digests) throws IOException {
+        long size = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                buffer.flip();
+                for (MessageDigest digest : digests) {
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                }
+                buffer.clear();
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    protected static MessageDigest getDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to find the " + algorithm + " algorithm", e);
+        }
+    }
+
+    protected HttpURLConnection open(String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod(method);
+        if (signer != null) {
+            signer.sign(connection);
+        }
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        connection.setInstanceFollowRedirects(true);
+        return connection;
+    }
+
+    protected static void checkResponse(HttpURLConnection connection, int expected) throws IOException {
+        int code = connection.getResponseCode();
+        if (code != expected) {
+            throw new IOException(format("Unable to download the artifact, server replied %d %s", code, connection.getResponseMessage()));
+        }
+    }
+
+    /**
+     * Download a range of the artifact and write it at its position in the file.
+     */
+    private class ChunkTask implements Callable<Boolean> {
+        private final FileChannel channel;
+        private final long        start;
+        private final long        end;
+
+        public ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Boolean call() throws IOException {
+            HttpURLConnection connection = open("GET");
+            try {
+                connection.setRequestProperty("Range", format("bytes=%d-%d", start, end));
+                // server is ignoring the range
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    return false;
+                }
+                checkResponse(connection, HttpURLConnection.HTTP_PARTIAL);
+                try (InputStream inputStream = connection.getInputStream()) {
+                    long written = transfer(inputStream, channel, start);
+                    if (written != end - start + 1) {
+                        throw new IOException(format("Received %d bytes for the range %d-%d", written, start, end));
+                    }
+                }
+                return true;
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    protected static class DownloadedStream {
+        private long   length;
+        private String contentMD5;
+    }
+
+}
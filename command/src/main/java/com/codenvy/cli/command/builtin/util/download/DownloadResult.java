@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.util.download;
+
+import java.nio.file.Path;
+
+/**
+ * Result of an artifact download.
+ */
+public class DownloadResult {
+
+    private final Path   path;
+    private final long   size;
+    private final String sha1;
+    private final int    chunks;
+
+    public DownloadResult(Path path, long size, String sha1, int chunks) {
+        this.path = path;
+        this.size = size;
+        this.sha1 = sha1;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return the downloaded file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the size in bytes of the downloaded file
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the SHA-1 checksum of the downloaded file
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * @return the number of chunks used to download the file, 1 if a single request has been used
+     */
+    public int getChunks() {
+        return chunks;
+    }
+}
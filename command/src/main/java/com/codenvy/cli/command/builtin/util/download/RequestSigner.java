@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.util.download;
+
+import java.net.HttpURLConnection;
+
+/**
+ * Adds the credentials of a remote to a request that is not sent by the client of the remote, like the download of an artifact.
+ */
+public interface RequestSigner {
+
+    /**
+     * Authenticate the given request, before it is sent.
+     */
+    void sign(HttpURLConnection connection);
+}
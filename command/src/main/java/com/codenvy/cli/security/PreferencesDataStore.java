@@ -19,6 +19,11 @@ import com.codenvy.client.store.DataStoreFactory;
 
 /**
  * Factory that has only a mapping one-to-one as we're one factory for each URL/user
+ * <p>
+ * Credentials are converted once and kept in memory, as they are read for each request sent to the remote. The stored entry is still read
+ * each time and compared with the one that has been converted, so credentials written by another store, another session or another
+ * process are converted again.
+ * </p>
  *
  * @author Florent Benoit
  */
@@ -39,6 +44,11 @@ public class PreferencesDataStore implements DataStoreFactory<String, Credential
      */
     private String remote;
 
+    /**
+     * Last converted credentials, null if they have not yet been read.
+     */
+    private volatile CachedCredentials cachedCredentials;
+
     /**
      * Basic constructor that initializes an empty {@link DataStore} cache.
      */
@@ -54,6 +64,29 @@ public class PreferencesDataStore implements DataStoreFactory<String, Credential
         return this.preferences.get(remote, RemoteCredentials.class);
     }
 
+    /**
+     * @return the credentials of the remote, converted only if the stored entry has been modified since the last call
+     */
+    private Credentials getCachedCredentials() {
+        RemoteCredentials remoteCredentials = getRemoteCredentials();
+        CachedCredentials cached = cachedCredentials;
+        if (cached != null && cached.isConvertedFrom(remoteCredentials)) {
+            return cached.credentials;
+        }
+        Credentials credentials = credentialsHelper.convert(remoteCredentials);
+        if (credentials != null) {
+            cachedCredentials = new CachedCredentials(remoteCredentials, credentials);
+        }
+        return credentials;
+    }
+
+    /**
+     * Forget the converted credentials.
+     */
+    public void invalidate() {
+        cachedCredentials = null;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -62,18 +95,18 @@ public class PreferencesDataStore implements DataStoreFactory<String, Credential
      */
     @Override
     public Credentials get(String key) {
-        return credentialsHelper.convert(getRemoteCredentials());
+        return getCachedCredentials();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Store the {@link Credentials} first in the in-memory cache, then dump this cache to the file. This method is synchronized to prevent
-     * multiple threads from writing the file simultaneously.
+     * Store the {@link Credentials} first in the in-memory cache, then dump this cache to the file. The entry is replaced atomically by
+     * the preferences, so tokens of several remotes can be refreshed concurrently.
      * </p>
      */
     @Override
-    public synchronized Credentials put(String key, Credentials credentials) {
+    public Credentials put(String key, Credentials credentials) {
         this.preferences.put(remote, credentialsHelper.convert(credentials));
         return get(key);
     }
@@ -94,7 +127,7 @@ public class PreferencesDataStore implements DataStoreFactory<String, Credential
         empty.setToken("");
         preferences.merge(remote, empty);
 
-        return credentialsHelper.convert(getRemoteCredentials());
+        return getCachedCredentials();
     }
 
     @Override
@@ -105,6 +138,35 @@ public class PreferencesDataStore implements DataStoreFactory<String, Credential
 
     @Override
     public Credentials getCredentials(String s) {
-        return credentialsHelper.convert(getRemoteCredentials());
+        return getCachedCredentials();
+    }
+
+    /**
+     * Converted credentials along with the stored entry they have been converted from.
+     */
+    private static class CachedCredentials {
+        private final String      token;
+        private final String      username;
+        private final Credentials credentials;
+
+        private CachedCredentials(RemoteCredentials remoteCredentials, Credentials credentials) {
+            this.token = remoteCredentials == null ? null : remoteCredentials.getToken();
+            this.username = remoteCredentials == null ? null : remoteCredentials.getUsername();
+            this.credentials = credentials;
+        }
+
+        /**
+         * @return true if the credentials have been converted from an entry with the same content
+         */
+        private boolean isConvertedFrom(RemoteCredentials remoteCredentials) {
+            if (remoteCredentials == null) {
+                return token == null && username == null;
+            }
+            return equals(token, remoteCredentials.getToken()) && equals(username, remoteCredentials.getUsername());
+        }
+
+        private static boolean equals(String value, String otherValue) {
+            return value == null ? otherValue == null : value.equals(otherValue);
+        }
     }
 }
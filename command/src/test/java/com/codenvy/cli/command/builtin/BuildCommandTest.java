@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.command.builtin.helper.BuildCache;
+import com.codenvy.cli.command.builtin.model.UserBuilderStatus;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.client.dummy.DummyCodenvyClient;
+import com.codenvy.client.dummy.project.DummyProject;
+import com.codenvy.client.dummy.workspace.DummyWorkspace;
+import com.codenvy.client.model.BuilderState;
+import com.codenvy.client.model.BuilderStatus;
+import com.codenvy.client.model.BuildersDescription;
+import com.codenvy.client.model.Link;
+import com.codenvy.client.model.Project;
+
+import org.apache.felix.service.command.CommandSession;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test the skip of the builds whose sources did not change
+ */
+public class BuildCommandTest extends AbsCommandTest {
+
+    /**
+     * Build returned as the last build of the same sources, null if there is none.
+     */
+    private BuilderStatus cachedBuild;
+
+    /**
+     * Number of times the fingerprint of the sources has been asked.
+     */
+    private int lookups;
+
+    /**
+     * Build started by the command, null if the build has been skipped.
+     */
+    private BuilderStatus startedBuild;
+
+    /**
+     * Build followed in background by the command.
+     */
+    private UserBuilderStatus followedBuild;
+
+    private DummyProject project1;
+
+    @BeforeMethod
+    public void setUp() {
+        cachedBuild = null;
+        lookups = 0;
+        startedBuild = null;
+        followedBuild = null;
+    }
+
+    protected CommandInvoker getInvoker() {
+        BuildCommand buildCommand = new BuildCommand() {
+            @Override
+            protected BuildCache newBuildCache() {
+                return new BuildCache(getGlobalPreferences()) {
+                    @Override
+                    public String getFingerprint(UserProjectReference project) {
+                        lookups++;
+                        return "42";
+                    }
+
+                    @Override
+                    public BuilderStatus getReusableBuild(UserProjectReference project, String fingerprint) {
+                        return cachedBuild;
+                    }
+
+                    @Override
+                    protected BuilderStatus startBuild(UserProjectReference project) {
+                        startedBuild = newBuild(1, BuilderState.IN_QUEUE);
+                        return startedBuild;
+                    }
+                };
+            }
+
+            @Override
+            protected void useBackGround(UserBuilderStatus userBuilderStatus) {
+                followedBuild = userBuilderStatus;
+            }
+        };
+        DummyCodenvyClient codenvyClient = new DummyCodenvyClient();
+        CommandSession commandSession = prepare(buildCommand, codenvyClient);
+        CommandInvoker commandInvoker = new CommandInvoker(buildCommand, commandSession);
+
+        DummyWorkspace workspace1 = codenvyClient.newWorkspaceBuilder("WORKSPACE1").build();
+        project1 = codenvyClient.newProjectBuilder(workspace1.workspaceReference(), "project1").withType("java").withVisibility("public")
+                                .build();
+        commandInvoker.getDefaultRemoteCodenvy().workspace().registerWorkspace(workspace1);
+        commandInvoker.getDefaultRemoteCodenvy().project().registerProject(project1);
+
+        // the project has a builder
+        BuildersDescription buildersDescription = Mockito.mock(BuildersDescription.class);
+        doReturn("maven").when(buildersDescription).defaultBuilder();
+        Project projectDescription = Mockito.mock(Project.class);
+        doReturn(buildersDescription).when(projectDescription).builders();
+        MultiRemoteCodenvy multiRemoteCodenvy = Mockito.spy(commandInvoker.getMultiRemoteCodenvy());
+        doReturn(projectDescription).when(multiRemoteCodenvy).getProjectDescription(any(UserProjectReference.class));
+        doReturn(multiRemoteCodenvy).when(commandSession).get(MultiRemoteCodenvy.class.getName());
+
+        return commandInvoker.argument("project-id", Collections.singletonList(getProjectId(project1))).option("--bg", true);
+    }
+
+    protected BuilderStatus newBuild(long taskId, BuilderState state) {
+        Link downloadLink = Mockito.mock(Link.class);
+        doReturn("http://default/artifact.jar").when(downloadLink).href();
+        BuilderStatus builderStatus = Mockito.mock(BuilderStatus.class);
+        doReturn(taskId).when(builderStatus).taskId();
+        doReturn(state).when(builderStatus).status();
+        doReturn(downloadLink).when(builderStatus).getDownloadLink();
+        return builderStatus;
+    }
+
+    /**
+     * Expect the build to be skipped when the same sources have been successfully built
+     */
+    @Test
+    public void testUnchangedSourcesAreNotBuilt() throws Exception {
+        CommandInvoker commandInvoker = getInvoker();
+        cachedBuild = newBuild(2, BuilderState.SUCCESSFUL);
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertNull(startedBuild);
+        assertNull(followedBuild);
+        assertTrue(output.contains("Project project1 is unchanged since its last successful build."));
+        assertTrue(output.contains("Artifact URL is 'http://default/artifact.jar'"));
+    }
+
+    /**
+     * Expect the build to be started when there is no previous build of the same sources
+     */
+    @Test
+    public void testChangedSourcesAreBuilt() throws Exception {
+        CommandInvoker commandInvoker = getInvoker();
+
+        commandInvoker.invoke();
+
+        assertEquals(lookups, 1);
+        assertEquals(followedBuild.getInnerStatus(), startedBuild);
+    }
+
+    /**
+     * Expect the pending build of the same sources to be followed instead of starting a new one
+     */
+    @Test
+    public void testPendingBuildIsReused() throws Exception {
+        CommandInvoker commandInvoker = getInvoker();
+        cachedBuild = newBuild(2, BuilderState.IN_PROGRESS);
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertNull(startedBuild);
+        assertEquals(followedBuild.getInnerStatus(), cachedBuild);
+        assertTrue(output.contains("are already being built by builder " + followedBuild.shortId()));
+    }
+
+    /**
+     * Expect the project to be built with the force option even if the same sources have been built
+     */
+    @Test
+    public void testForceBuildsUnchangedSources() throws Exception {
+        CommandInvoker commandInvoker = getInvoker().option("--force", true);
+        cachedBuild = newBuild(2, BuilderState.SUCCESSFUL);
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertEquals(lookups, 0);
+        assertEquals(followedBuild.getInnerStatus(), startedBuild);
+        assertFalse(output.contains("unchanged"));
+    }
+}
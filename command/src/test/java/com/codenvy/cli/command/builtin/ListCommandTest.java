@@ -10,18 +10,39 @@
  *******************************************************************************/
 package com.codenvy.cli.command.builtin;
 
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
+import com.codenvy.cli.command.builtin.model.UserWorkspace;
 import com.codenvy.cli.command.builtin.util.ascii.FormatterMode;
 import com.codenvy.client.dummy.DummyCodenvyClient;
 import com.codenvy.client.dummy.project.DummyProject;
 import com.codenvy.client.dummy.workspace.DummyWorkspace;
 
 import org.apache.felix.service.command.CommandSession;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static com.codenvy.cli.command.builtin.util.ascii.FormatterMode.CSV;
 import static java.lang.String.format;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -31,6 +52,21 @@ import static org.testng.Assert.assertTrue;
  */
 public class ListCommandTest extends AbsCommandTest {
 
+    /**
+     * Number of collected projects given by each progress of the verbose mode.
+     */
+    private List<Integer> progress;
+
+    /**
+     * Released by the first progress of the verbose mode.
+     */
+    private CountDownLatch firstProgress;
+
+    @BeforeMethod
+    public void setUp() {
+        progress = new CopyOnWriteArrayList<>();
+        firstProgress = new CountDownLatch(1);
+    }
 
     protected CommandInvoker getInvoker() {
         ListCommand listCommand = new ListCommand();
@@ -126,4 +162,145 @@ public class ListCommandTest extends AbsCommandTest {
                                                                     "%n"));
 
     }
+
+    /**
+     * Expect the details of the projects to be collected concurrently, without exceeding the limit of each remote
+     */
+    @Test
+    public void testDetailsAreCollectedConcurrentlyWithinTheRemoteLimit() throws Exception {
+        MultiRemoteCodenvy multiRemoteCodenvy = Mockito.mock(MultiRemoteCodenvy.class);
+        final RequestCounter requestCounter = new RequestCounter();
+        // first requests of both remotes wait for each other, so they only complete if they are running at the same time
+        final CountDownLatch concurrentRequests = new CountDownLatch(4);
+        final AtomicBoolean concurrent = new AtomicBoolean(true);
+        doAnswer(new Answer<List<UserRunnerStatus>>() {
+            @Override
+            public List<UserRunnerStatus> answer(InvocationOnMock invocation) throws Throwable {
+                String remote = ((UserProjectReference)invocation.getArguments()[0]).getWorkspace().getRemote();
+                requestCounter.start(remote);
+                try {
+                    concurrentRequests.countDown();
+                    if (!concurrentRequests.await(5, TimeUnit.SECONDS)) {
+                        concurrent.set(false);
+                    }
+                    Thread.sleep(10);
+                } finally {
+                    requestCounter.end(remote);
+                }
+                return Collections.emptyList();
+            }
+        }).when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        List<UserProjectReference> projects = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            projects.add(newProject("remote1"));
+            projects.add(newProject("remote2"));
+        }
+
+        ListCommand.ProjectDetails[] projectDetails = newListCommand(multiRemoteCodenvy, 2).collectDetails(projects);
+
+        assertTrue(concurrent.get());
+        assertEquals(requestCounter.getMaxRunning("remote1"), 2);
+        assertEquals(requestCounter.getMaxRunning("remote2"), 2);
+        assertEquals(projectDetails.length, projects.size());
+        for (ListCommand.ProjectDetails details : projectDetails) {
+            assertNotNull(details);
+        }
+        assertEquals(progress.size(), projects.size());
+    }
+
+    /**
+     * Expect the progress to be given by the completed projects, whatever their order in the list
+     */
+    @Test
+    public void testProgressIsGivenByCompletions() throws Exception {
+        MultiRemoteCodenvy multiRemoteCodenvy = Mockito.mock(MultiRemoteCodenvy.class);
+        final UserProjectReference slowProject = newProject("remote1");
+        UserProjectReference fastProject = newProject("remote1");
+        // first project completes only once the completion of the second one has been shown
+        final AtomicBoolean progressBeforeSlowProject = new AtomicBoolean();
+        doAnswer(new Answer<List<UserRunnerStatus>>() {
+            @Override
+            public List<UserRunnerStatus> answer(InvocationOnMock invocation) throws Throwable {
+                if (invocation.getArguments()[0] == slowProject) {
+                    progressBeforeSlowProject.set(firstProgress.await(5, TimeUnit.SECONDS));
+                }
+                return Collections.emptyList();
+            }
+        }).when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        ListCommand.ProjectDetails[] projectDetails = newListCommand(multiRemoteCodenvy, 2).collectDetails(
+                Arrays.asList(slowProject, fastProject));
+
+        assertTrue(progressBeforeSlowProject.get());
+        assertEquals(progress, Arrays.asList(1, 2));
+        assertNotNull(projectDetails[0]);
+        assertNotNull(projectDetails[1]);
+    }
+
+    /**
+     * Build a list command collecting the details of the projects with the given remote codenvy, with at most the given number of
+     * concurrent requests on each remote
+     */
+    protected ListCommand newListCommand(final MultiRemoteCodenvy multiRemoteCodenvy, int parallel) {
+        ListCommand listCommand = new ListCommand() {
+            @Override
+            protected MultiRemoteCodenvy getMultiRemoteCodenvy() {
+                return multiRemoteCodenvy;
+            }
+
+            @Override
+            protected boolean isStackTraceEnabled() {
+                return true;
+            }
+
+            @Override
+            protected boolean isProgressEnabled() {
+                return true;
+            }
+
+            @Override
+            protected void showProgress(int completed, int total) {
+                progress.add(completed);
+                firstProgress.countDown();
+            }
+        };
+        new CommandInvoker(listCommand, Mockito.mock(CommandSession.class)).option("--parallel", parallel);
+        return listCommand;
+    }
+
+    protected UserProjectReference newProject(String remote) {
+        UserWorkspace workspace = Mockito.mock(UserWorkspace.class);
+        doReturn(remote).when(workspace).getRemote();
+        UserProjectReference project = Mockito.mock(UserProjectReference.class);
+        doReturn(workspace).when(project).getWorkspace();
+        return project;
+    }
+
+    /**
+     * Counts the requests running at the same time on each remote.
+     */
+    private static class RequestCounter {
+        private final Map<String, Integer> running    = new HashMap<>();
+        private final Map<String, Integer> maxRunning = new HashMap<>();
+
+        synchronized void start(String remote) {
+            int count = get(running, remote) + 1;
+            running.put(remote, count);
+            maxRunning.put(remote, Math.max(count, get(maxRunning, remote)));
+        }
+
+        synchronized void end(String remote) {
+            running.put(remote, get(running, remote) - 1);
+        }
+
+        synchronized int getMaxRunning(String remote) {
+            return get(maxRunning, remote);
+        }
+
+        private static int get(Map<String, Integer> counts, String remote) {
+            Integer count = counts.get(remote);
+            return count == null ? 0 : count;
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
+import com.codenvy.cli.command.builtin.model.UserWorkspace;
+import com.codenvy.client.Codenvy;
+import com.codenvy.client.Request;
+import com.codenvy.client.RunnerClient;
+import com.codenvy.client.dummy.DummyCodenvyClient;
+import com.codenvy.client.dummy.project.DummyProject;
+import com.codenvy.client.dummy.workspace.DummyWorkspace;
+import com.codenvy.client.model.ProjectReference;
+import com.codenvy.client.model.RunnerState;
+import com.codenvy.client.model.RunnerStatus;
+
+import org.apache.felix.service.command.CommandSession;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test the search in the logs of the logs command
+ */
+public class LogsCommandTest extends AbsCommandTest {
+
+    private static final String LOG = "INFO starting\nERROR first failure\nINFO running\nERROR second failure\n";
+
+    /**
+     * Build an invoker whose default remote has a project with a running runner producing the given log
+     */
+    protected CommandInvoker getInvoker(String log) {
+        LogsCommand logsCommand = new LogsCommand();
+        DummyCodenvyClient codenvyClient = new DummyCodenvyClient();
+        CommandSession commandSession = prepare(logsCommand, codenvyClient);
+        CommandInvoker commandInvoker = new CommandInvoker(logsCommand, commandSession);
+
+        DummyWorkspace workspace1 = codenvyClient.newWorkspaceBuilder("WORKSPACE1").build();
+        DummyProject project1 = codenvyClient.newProjectBuilder(workspace1.workspaceReference(), "project1").withType("java")
+                                             .withVisibility("public").build();
+        commandInvoker.getDefaultRemoteCodenvy().workspace().registerWorkspace(workspace1);
+        commandInvoker.getDefaultRemoteCodenvy().project().registerProject(project1);
+
+        // runner of the project
+        Request<String> logsRequest = Mockito.mock(Request.class);
+        doReturn(log).when(logsRequest).execute();
+        RunnerClient runnerClient = Mockito.mock(RunnerClient.class);
+        doReturn(logsRequest).when(runnerClient).logs(any(ProjectReference.class), anyLong());
+        Codenvy codenvy = Mockito.mock(Codenvy.class);
+        doReturn(runnerClient).when(codenvy).runner();
+        UserWorkspace workspace = Mockito.mock(UserWorkspace.class);
+        doReturn("WORKSPACE1").when(workspace).name();
+        doReturn("default").when(workspace).getRemote();
+        UserProjectReference project = Mockito.mock(UserProjectReference.class);
+        doReturn("project1").when(project).name();
+        doReturn(workspace).when(project).getWorkspace();
+        doReturn(codenvy).when(project).getCodenvy();
+        RunnerStatus runnerStatus = Mockito.mock(RunnerStatus.class);
+        doReturn(RunnerState.RUNNING).when(runnerStatus).status();
+        doReturn(1L).when(runnerStatus).processId();
+        UserRunnerStatus userRunnerStatus = Mockito.mock(UserRunnerStatus.class);
+        doReturn("r1234").when(userRunnerStatus).shortId();
+        doReturn(project).when(userRunnerStatus).getProject();
+        doReturn(runnerStatus).when(userRunnerStatus).getInnerStatus();
+
+        MultiRemoteCodenvy multiRemoteCodenvy = Mockito.spy(commandInvoker.getMultiRemoteCodenvy());
+        doReturn(Collections.singletonList(userRunnerStatus)).when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+        doReturn(Collections.emptyList()).when(multiRemoteCodenvy).getBuilders(any(UserProjectReference.class));
+        doReturn(multiRemoteCodenvy).when(commandSession).get(MultiRemoteCodenvy.class.getName());
+
+        return commandInvoker;
+    }
+
+    /**
+     * Expect all matching lines to be printed
+     */
+    @Test
+    public void testGrep() throws Exception {
+        CommandInvoker.Result result = getInvoker(LOG).option("--grep", "ERROR").invoke();
+
+        String output = result.disableAnsi().getOutputStream();
+        assertTrue(output.contains("r1234 project1 (WORKSPACE1@default): ERROR first failure"));
+        assertTrue(output.contains("r1234 project1 (WORKSPACE1@default): ERROR second failure"));
+        assertFalse(output.contains("INFO"));
+        assertTrue(output.contains("2 matching lines found in 1 logs"));
+    }
+
+    /**
+     * Expect the search to stop once the maximum number of matching lines is reached
+     */
+    @Test
+    public void testMaxMatches() throws Exception {
+        CommandInvoker.Result result = getInvoker(LOG).option("--grep", "ERROR").option("--max-matches", 1).invoke();
+
+        String output = result.disableAnsi().getOutputStream();
+        assertTrue(output.contains("ERROR first failure"));
+        assertFalse(output.contains("ERROR second failure"));
+        assertTrue(output.contains("Search stopped after 1 matching lines"));
+    }
+
+    /**
+     * Expect an error for an invalid regular expression
+     */
+    @Test
+    public void testInvalidExpression() throws Exception {
+        CommandInvoker.Result result = getInvoker(LOG).option("--grep", "[ERROR").invoke();
+
+        assertTrue(result.disableAnsi().getOutputStream().contains("Invalid regular expression '[ERROR'"));
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.file.FilePreferences;
+import com.codenvy.cli.security.RemoteCredentials;
+import com.codenvy.client.Codenvy;
+import com.codenvy.client.dummy.DummyCodenvy;
+import com.codenvy.client.dummy.DummyCodenvyClient;
+import com.codenvy.client.dummy.workspace.DummyWorkspace;
+
+import org.apache.felix.service.command.CommandSession;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test the registry of remotes kept by {@link MultiRemoteCodenvy}.
+ */
+public class MultiRemoteCodenvyTest {
+
+    private File preferencesFile;
+
+    private FilePreferences preferences;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        preferencesFile = File.createTempFile("preferences", ".json");
+        preferences = new FilePreferences(preferencesFile).setDisableSaveOnChanges();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        preferences.close();
+        preferencesFile.delete();
+        new File(preferencesFile.getPath() + ".lock").delete();
+    }
+
+    protected MultiRemoteCodenvy newMultiRemoteCodenvy() {
+        return new MultiRemoteCodenvy(new DummyCodenvyClient(), preferences, Mockito.mock(CommandSession.class));
+    }
+
+    protected void addReadyRemote(String name) {
+        Preferences remotes = preferences.path("remotes");
+        Remote remote = new Remote();
+        remote.setUrl("http://" + name);
+        remotes.put(name, remote);
+        RemoteCredentials remoteCredentials = new RemoteCredentials();
+        remoteCredentials.setUsername("user");
+        remoteCredentials.setToken("token-" + name);
+        remotes.merge(name, remoteCredentials);
+    }
+
+    @Test
+    public void testRegistryIsKeptInSync() {
+        MultiRemoteCodenvy multiRemoteCodenvy = newMultiRemoteCodenvy();
+        assertTrue(multiRemoteCodenvy.addRemote("first", "http://first"));
+        assertTrue(multiRemoteCodenvy.addRemote("second", "http://second"));
+
+        assertTrue(multiRemoteCodenvy.setDefaultRemote("second"));
+        assertEquals(multiRemoteCodenvy.getDefaultRemoteName(), "second");
+        assertEquals(multiRemoteCodenvy.getDefaultRemote().getUrl(), "http://second");
+
+        assertTrue(multiRemoteCodenvy.setDefaultRemote("first"));
+        assertEquals(multiRemoteCodenvy.getDefaultRemoteName(), "first");
+        assertFalse(multiRemoteCodenvy.getRemote("second").isDefaultRemote());
+
+        // same registry when it is built from the preferences
+        assertEquals(newMultiRemoteCodenvy().getDefaultRemoteName(), "first");
+
+        assertTrue(multiRemoteCodenvy.removeRemote("second"));
+        assertNull(multiRemoteCodenvy.getRemote("second"));
+        assertEquals(multiRemoteCodenvy.getRemoteNames().size(), 1);
+    }
+
+    @Test
+    public void testReturnedRemoteIsACopy() {
+        MultiRemoteCodenvy multiRemoteCodenvy = newMultiRemoteCodenvy();
+        assertTrue(multiRemoteCodenvy.addRemote("first", "http://first"));
+        assertTrue(multiRemoteCodenvy.setDefaultRemote("first"));
+
+        multiRemoteCodenvy.getRemote("first").setUrl("http://changed");
+        multiRemoteCodenvy.getDefaultRemote().setDefaultRemote(false);
+
+        assertEquals(multiRemoteCodenvy.getRemote("first").getUrl(), "http://first");
+        assertTrue(multiRemoteCodenvy.getDefaultRemote().isDefaultRemote());
+    }
+
+    @Test
+    public void testLogoutOnlyDisconnectsItsRemote() {
+        addReadyRemote("first");
+        addReadyRemote("second");
+        MultiRemoteCodenvy multiRemoteCodenvy = newMultiRemoteCodenvy();
+        Codenvy second = multiRemoteCodenvy.getReadyRemotes().get("second");
+        assertNotNull(second);
+
+        assertTrue(multiRemoteCodenvy.logout("first"));
+
+        assertNull(multiRemoteCodenvy.getReadyRemotes().get("first"));
+        assertNotNull(multiRemoteCodenvy.getRemote("first"));
+        assertSame(multiRemoteCodenvy.getReadyRemotes().get("second"), second);
+    }
+
+    @Test
+    public void testClientsAreBuiltOnFirstUse() {
+        addReadyRemote("first");
+        addReadyRemote("second");
+        DummyCodenvyClient codenvyClient = Mockito.spy(new DummyCodenvyClient());
+        MultiRemoteCodenvy multiRemoteCodenvy = new MultiRemoteCodenvy(codenvyClient, preferences, Mockito.mock(CommandSession.class));
+
+        // loading the remotes and going through the ready remotes build no client
+        for (Map.Entry<String, Codenvy> entry : multiRemoteCodenvy.getReadyRemotes().entrySet()) {
+            assertNotNull(entry.getKey());
+        }
+        verify(codenvyClient, never()).newCodenvyBuilder(anyString(), anyString());
+
+        // only the client of the used remote is built, once
+        Codenvy second = multiRemoteCodenvy.getReadyRemotes().get("second");
+        assertSame(multiRemoteCodenvy.getReadyRemotes().get("second"), second);
+        verify(codenvyClient).newCodenvyBuilder("http://second", "user");
+        verify(codenvyClient, never()).newCodenvyBuilder(eq("http://first"), anyString());
+    }
+
+    @Test
+    public void testWarmedProjectsAreUsedOnce() {
+        addReadyRemote("first");
+        DummyCodenvyClient codenvyClient = new DummyCodenvyClient();
+        MultiRemoteCodenvy multiRemoteCodenvy = new MultiRemoteCodenvy(codenvyClient, preferences, Mockito.mock(CommandSession.class));
+        DummyCodenvy codenvy = (DummyCodenvy)multiRemoteCodenvy.getReadyRemotes().get("first");
+        DummyWorkspace workspace = codenvyClient.newWorkspaceBuilder("WORKSPACE1").build();
+        codenvy.workspace().registerWorkspace(workspace);
+        codenvy.project().registerProject(codenvyClient.newProjectBuilder(workspace.workspaceReference(), "project1").withType(
+                "java").withVisibility("public").build());
+
+        multiRemoteCodenvy.warmUp();
+        assertTrue(multiRemoteCodenvy.awaitWarmUp(10 * 1000));
+        codenvy.project().registerProject(codenvyClient.newProjectBuilder(workspace.workspaceReference(), "project2").withType(
+                "java").withVisibility("public").build());
+
+        // first lookup gets the projects fetched by the warm-up, next ones send the requests again
+        assertEquals(multiRemoteCodenvy.getProjects().size(), 1);
+        assertEquals(multiRemoteCodenvy.getProjects().size(), 2);
+    }
+
+    @Test
+    public void testPublicLookupKeepsWarmedProjects() {
+        addReadyRemote("first");
+        DummyCodenvyClient codenvyClient = new DummyCodenvyClient();
+        MultiRemoteCodenvy multiRemoteCodenvy = new MultiRemoteCodenvy(codenvyClient, preferences, Mockito.mock(CommandSession.class));
+        DummyCodenvy codenvy = (DummyCodenvy)multiRemoteCodenvy.getReadyRemotes().get("first");
+        DummyWorkspace workspace = codenvyClient.newWorkspaceBuilder("WORKSPACE1").build();
+        codenvy.workspace().registerWorkspace(workspace);
+        codenvy.project().registerProject(codenvyClient.newProjectBuilder(workspace.workspaceReference(), "project1").withType(
+                "java").withVisibility("public").build());
+
+        multiRemoteCodenvy.warmUp();
+        assertTrue(multiRemoteCodenvy.awaitWarmUp(10 * 1000));
+        codenvy.project().registerProject(codenvyClient.newProjectBuilder(workspace.workspaceReference(), "project2").withType(
+                "java").withVisibility("public").build());
+
+        // public projects are always fetched, the warmed projects remain available for the next lookup
+        assertEquals(multiRemoteCodenvy.getProjects(true).size(), 2);
+        assertEquals(multiRemoteCodenvy.getProjects().size(), 1);
+    }
+}
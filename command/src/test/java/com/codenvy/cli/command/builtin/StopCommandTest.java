@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin;
+
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserRunnerStatus;
+import com.codenvy.cli.command.builtin.model.UserWorkspace;
+import com.codenvy.client.dummy.DummyCodenvyClient;
+import com.codenvy.client.dummy.project.DummyProject;
+import com.codenvy.client.dummy.workspace.DummyWorkspace;
+import com.codenvy.client.model.RunnerState;
+import com.codenvy.client.model.RunnerStatus;
+
+import org.apache.felix.service.command.CommandSession;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test of the stop command
+ */
+public class StopCommandTest extends AbsCommandTest {
+
+    /**
+     * Runners stopped by the command.
+     */
+    private List<String> stoppedRunners;
+
+    private DummyProject project1;
+
+    private MultiRemoteCodenvy multiRemoteCodenvy;
+
+    @BeforeMethod
+    public void setUp() {
+        stoppedRunners = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    protected CommandInvoker getInvoker() {
+        StopCommand stopCommand = new StopCommand() {
+            @Override
+            protected UserRunnerStatus stopStatus(UserRunnerStatus status) {
+                stoppedRunners.add(status.shortId());
+                return status;
+            }
+        };
+        DummyCodenvyClient codenvyClient = new DummyCodenvyClient();
+        CommandSession commandSession = prepare(stopCommand, codenvyClient);
+        CommandInvoker commandInvoker = new CommandInvoker(stopCommand, commandSession);
+
+        DummyWorkspace workspace1 = codenvyClient.newWorkspaceBuilder("WORKSPACE1").build();
+        project1 = codenvyClient.newProjectBuilder(workspace1.workspaceReference(), "project1").withType("java").withVisibility("public")
+                                .build();
+        commandInvoker.getDefaultRemoteCodenvy().workspace().registerWorkspace(workspace1);
+        commandInvoker.getDefaultRemoteCodenvy().project().registerProject(project1);
+
+        multiRemoteCodenvy = Mockito.spy(commandInvoker.getMultiRemoteCodenvy());
+        doReturn(multiRemoteCodenvy).when(commandSession).get(MultiRemoteCodenvy.class.getName());
+        return commandInvoker;
+    }
+
+    protected UserRunnerStatus newRunner(String shortId, RunnerState state) {
+        UserWorkspace workspace = Mockito.mock(UserWorkspace.class);
+        doReturn("default").when(workspace).getRemote();
+        UserProjectReference project = Mockito.mock(UserProjectReference.class);
+        doReturn(workspace).when(project).getWorkspace();
+        RunnerStatus runnerStatus = Mockito.mock(RunnerStatus.class);
+        doReturn(state).when(runnerStatus).status();
+        UserRunnerStatus userRunnerStatus = Mockito.mock(UserRunnerStatus.class);
+        doReturn(shortId).when(userRunnerStatus).shortId();
+        doReturn(project).when(userRunnerStatus).getProject();
+        doReturn(runnerStatus).when(userRunnerStatus).getInnerStatus();
+        return userRunnerStatus;
+    }
+
+    /**
+     * Expect all the runners of the given project to be stopped, whatever their state
+     */
+    @Test
+    public void testStopProject() throws Exception {
+        CommandInvoker commandInvoker = getInvoker().argument("id", getProjectId(project1));
+        doReturn(asList(newRunner("r111111", RunnerState.RUNNING), newRunner("r222222", RunnerState.STOPPED)))
+                .when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertEquals(stoppedRunners.size(), 2);
+        assertTrue(output.contains("Runners stopped: "));
+    }
+
+    /**
+     * Expect the message about the project when it has no runners
+     */
+    @Test
+    public void testStopProjectWithoutRunners() throws Exception {
+        CommandInvoker commandInvoker = getInvoker().argument("id", getProjectId(project1));
+        doReturn(Collections.emptyList()).when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertTrue(output.contains("No active runners for the given project."));
+    }
+
+    /**
+     * Expect only the active runners to be stopped when a scope is given
+     */
+    @Test
+    public void testStopAllSkipsInactiveRunners() throws Exception {
+        CommandInvoker commandInvoker = getInvoker().option("--all", true);
+        doReturn(asList(newRunner("r111111", RunnerState.RUNNING), newRunner("r222222", RunnerState.STOPPED),
+                        newRunner("r333333", RunnerState.NEW)))
+                .when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertEquals(stoppedRunners.size(), 2);
+        assertFalse(stoppedRunners.contains("r222222"));
+        assertTrue(output.contains("Runners stopped: "));
+    }
+
+    /**
+     * Expect the failures to be reported instead of an empty list of stopped runners
+     */
+    @Test
+    public void testFailedLookupIsReported() throws Exception {
+        CommandInvoker commandInvoker = getInvoker().option("--all", true);
+        doThrow(new IllegalStateException("remote unavailable")).when(multiRemoteCodenvy).getRunners(any(UserProjectReference.class));
+
+        String output = commandInvoker.invoke().disableAnsi().getOutputStream();
+
+        assertTrue(stoppedRunners.isEmpty());
+        assertFalse(output.contains("Runners stopped"));
+        assertTrue(output.contains("Unable to stop runners"));
+        assertTrue(output.contains("remote unavailable"));
+    }
+}
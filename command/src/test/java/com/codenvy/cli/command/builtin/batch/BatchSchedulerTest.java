@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.batch;
+
+import com.codenvy.cli.command.builtin.MultiRemoteCodenvy;
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserWorkspace;
+import com.codenvy.client.Codenvy;
+import com.codenvy.client.model.ProjectReference;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Test the scheduling of batch jobs.
+ */
+public class BatchSchedulerTest {
+
+    private List<String> startOrder;
+
+    private AtomicInteger running;
+
+    private AtomicInteger maxRunning;
+
+    @BeforeMethod
+    public void setUp() {
+        startOrder = Collections.synchronizedList(new ArrayList<String>());
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+    }
+
+    @Test
+    public void testDependencyOrder() throws Exception {
+        FakeJob a = new FakeJob("a", "remote", 2, true);
+        FakeJob b = new FakeJob("b", "remote", 1, true);
+        FakeJob c = new FakeJob("c", "remote", 1, true);
+        b.addDependency(a);
+        c.addDependency(b);
+
+        boolean result = new BatchScheduler(Arrays.<BatchJob>asList(c, b, a), 4, false).withPollInterval(0).execute();
+
+        assertTrue(result);
+        assertEquals(startOrder, Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    public void testParallelLimitPerRemote() throws Exception {
+        List<BatchJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            jobs.add(new FakeJob("first" + i, "first", 2, true));
+            jobs.add(new FakeJob("second" + i, "second", 2, true));
+        }
+
+        boolean result = new BatchScheduler(jobs, 2, false).withPollInterval(0).execute();
+
+        assertTrue(result);
+        assertEquals(startOrder.size(), 8);
+        // two jobs on each remote
+        assertEquals(maxRunning.get(), 4);
+    }
+
+    @Test
+    public void testFailureSkipsDependentJobs() throws Exception {
+        FakeJob a = new FakeJob("a", "remote", 1, false);
+        FakeJob b = new FakeJob("b", "remote", 1, true);
+        FakeJob c = new FakeJob("c", "remote", 1, true);
+        b.addDependency(a);
+
+        boolean result = new BatchScheduler(Arrays.<BatchJob>asList(a, b, c), 1, false).withPollInterval(0).execute();
+
+        assertFalse(result);
+        assertEquals(a.getState(), BatchJob.State.FAILED);
+        assertEquals(b.getState(), BatchJob.State.SKIPPED);
+        assertEquals(c.getState(), BatchJob.State.SUCCESSFUL);
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        FakeJob a = new FakeJob("a", "remote", 1, false);
+        FakeJob b = new FakeJob("b", "remote", 1, true);
+
+        boolean result = new BatchScheduler(Arrays.<BatchJob>asList(a, b), 1, true).withPollInterval(0).execute();
+
+        assertFalse(result);
+        assertEquals(a.getState(), BatchJob.State.FAILED);
+        assertEquals(b.getState(), BatchJob.State.SKIPPED);
+        assertEquals(startOrder, Arrays.asList("a"));
+    }
+
+    @Test
+    public void testReadyJobsAreStartedConcurrently() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        List<BatchJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            jobs.add(new FakeJob("job" + i, "remote", 1, true) {
+                @Override
+                protected void start() {
+                    started.countDown();
+                    try {
+                        // both jobs are starting at the same time
+                        if (!started.await(10, TimeUnit.SECONDS)) {
+                            fail("other job not started");
+                        }
+                    } catch (InterruptedException e) {
+                        fail("interrupted");
+                    }
+                    super.start();
+                }
+            });
+        }
+
+        boolean result = new BatchScheduler(jobs, 2, false).withPollInterval(0).execute();
+
+        assertTrue(result);
+        assertEquals(startOrder.size(), 2);
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        FakeJob a = new FakeJob("a", "remote", 1, true);
+        FakeJob b = new FakeJob("b", "remote", 1, true);
+        a.addDependency(b);
+        b.addDependency(a);
+
+        try {
+            new BatchScheduler(Arrays.<BatchJob>asList(a, b), 1, false).withPollInterval(0).execute();
+            fail("Cycle should be detected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Cycle"));
+        }
+        assertTrue(startOrder.isEmpty());
+    }
+
+    @Test
+    public void testParseEntry() {
+        BatchEntry entry = BatchEntry.parse("p1234: p5678, p9012 p3456");
+        assertEquals(entry.getProjectId(), "p1234");
+        assertEquals(entry.getDependencies(), Arrays.asList("p5678", "p9012", "p3456"));
+
+        entry = BatchEntry.parse("p1234");
+        assertEquals(entry.getProjectId(), "p1234");
+        assertTrue(entry.getDependencies().isEmpty());
+    }
+
+    /**
+     * Job completing after the given number of polls.
+     */
+    private class FakeJob extends BatchJob {
+        private final boolean succeed;
+        private       int     remainingPolls;
+
+        public FakeJob(String id, String remote, int polls, boolean succeed) {
+            super(id, new FakeProjectReference(id, remote));
+            this.remainingPolls = polls;
+            this.succeed = succeed;
+        }
+
+        @Override
+        protected void start() {
+            startOrder.add(getId());
+            int current = running.incrementAndGet();
+            while (maxRunning.get() < current) {
+                maxRunning.compareAndSet(maxRunning.get(), current);
+            }
+            running("started");
+        }
+
+        @Override
+        protected void poll() {
+            remainingPolls--;
+            if (remainingPolls > 0) {
+                return;
+            }
+            running.decrementAndGet();
+            if (succeed) {
+                succeed("done");
+            } else {
+                fail("failure");
+            }
+        }
+
+        @Override
+        public String getProcessId() {
+            return "";
+        }
+    }
+
+    private static class FakeProjectReference implements UserProjectReference {
+        private final String        name;
+        private final UserWorkspace workspace;
+
+        public FakeProjectReference(String name, final String remote) {
+            this.name = name;
+            this.workspace = new UserWorkspace() {
+                @Override
+                public String id() {
+                    return remote;
+                }
+
+                @Override
+                public String name() {
+                    return remote;
+                }
+
+                @Override
+                public List<UserProjectReference> getProjects() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public String getRemote() {
+                    return remote;
+                }
+
+                @Override
+                public MultiRemoteCodenvy getMultiRemoteCodenvy() {
+                    return null;
+                }
+
+                @Override
+                public Codenvy getCodenvy() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public UserWorkspace getWorkspace() {
+            return workspace;
+        }
+
+        @Override
+        public String sha1ID() {
+            return name;
+        }
+
+        @Override
+        public String shortId() {
+            return name;
+        }
+
+        @Override
+        public ProjectReference getInnerReference() {
+            return null;
+        }
+
+        @Override
+        public Codenvy getCodenvy() {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import com.codenvy.cli.command.builtin.model.UserProjectReference;
+import com.codenvy.cli.command.builtin.model.UserWorkspace;
+import com.codenvy.cli.preferences.file.FilePreferences;
+import com.codenvy.client.BuilderClient;
+import com.codenvy.client.Codenvy;
+import com.codenvy.client.ProjectClient;
+import com.codenvy.client.Request;
+import com.codenvy.client.model.BuilderState;
+import com.codenvy.client.model.BuilderStatus;
+import com.codenvy.client.model.Project;
+import com.codenvy.client.model.ProjectReference;
+
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test the reuse of the builds of unchanged sources and the eviction of the old builds.
+ */
+public class BuildCacheTest {
+
+    private File preferencesFile;
+
+    private FilePreferences preferences;
+
+    /**
+     * Number of times the fingerprint of the sources has been asked.
+     */
+    private AtomicInteger fingerprints;
+
+    /**
+     * Number of builds started on the remote.
+     */
+    private AtomicInteger startedBuilds;
+
+    /**
+     * Date recorded with the builds, incremented for each build.
+     */
+    private AtomicInteger time;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        preferencesFile = File.createTempFile("preferences", ".json");
+        preferences = new FilePreferences(preferencesFile).setDisableSaveOnChanges();
+        fingerprints = new AtomicInteger();
+        startedBuilds = new AtomicInteger();
+        time = new AtomicInteger();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        preferences.close();
+        preferencesFile.delete();
+        new File(preferencesFile.getPath() + ".lock").delete();
+    }
+
+    /**
+     * Build a cache whose sources fingerprint is the given one and whose builds are started with the given status
+     */
+    protected BuildCache newBuildCache(int maxBuilds, final String fingerprint, final BuilderStatus startedStatus) {
+        return new BuildCache(preferences, maxBuilds) {
+            @Override
+            public String getFingerprint(UserProjectReference project) {
+                fingerprints.incrementAndGet();
+                return fingerprint;
+            }
+
+            @Override
+            protected BuilderStatus startBuild(UserProjectReference project) {
+                startedBuilds.incrementAndGet();
+                return startedStatus;
+            }
+
+            @Override
+            protected long currentTime() {
+                return time.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Build a project whose remote builder gives the given status for all the builds
+     */
+    protected UserProjectReference newProject(String id, BuilderStatus remoteStatus) {
+        Request<BuilderStatus> statusRequest = Mockito.mock(Request.class);
+        doReturn(remoteStatus).when(statusRequest).execute();
+        BuilderClient builderClient = Mockito.mock(BuilderClient.class);
+        doReturn(statusRequest).when(builderClient).status(any(ProjectReference.class), anyLong());
+        Codenvy codenvy = Mockito.mock(Codenvy.class);
+        doReturn(builderClient).when(codenvy).builder();
+        UserProjectReference project = Mockito.mock(UserProjectReference.class);
+        doReturn(id).when(project).sha1ID();
+        doReturn(codenvy).when(project).getCodenvy();
+        return project;
+    }
+
+    protected BuilderStatus newStatus(long taskId, BuilderState state) {
+        BuilderStatus builderStatus = Mockito.mock(BuilderStatus.class);
+        doReturn(taskId).when(builderStatus).taskId();
+        doReturn(state).when(builderStatus).status();
+        return builderStatus;
+    }
+
+    @Test
+    public void testUnchangedSourcesReuseTheBuild() {
+        BuilderStatus successfulStatus = newStatus(1, BuilderState.SUCCESSFUL);
+        UserProjectReference project = newProject("project1", successfulStatus);
+        BuildCache buildCache = newBuildCache(10, "42", newStatus(1, BuilderState.IN_QUEUE));
+
+        BuildCache.Build build = buildCache.build(project, false);
+        assertFalse(build.isReused());
+        buildCache.succeeded(build, successfulStatus);
+
+        BuildCache.Build secondBuild = buildCache.build(project, false);
+        assertTrue(secondBuild.isReused());
+        assertEquals(secondBuild.getBuilderStatus(), successfulStatus);
+        assertEquals(startedBuilds.get(), 1);
+    }
+
+    @Test
+    public void testChangedSourcesAreBuilt() {
+        UserProjectReference project = newProject("project1", newStatus(1, BuilderState.SUCCESSFUL));
+        newBuildCache(10, "42", newStatus(1, BuilderState.IN_QUEUE)).build(project, false);
+
+        BuildCache.Build build = newBuildCache(10, "43", newStatus(2, BuilderState.IN_QUEUE)).build(project, false);
+
+        assertFalse(build.isReused());
+        assertEquals(startedBuilds.get(), 2);
+    }
+
+    @Test
+    public void testForcedBuildDoesNotLookAtTheSources() {
+        UserProjectReference project = newProject("project1", newStatus(1, BuilderState.SUCCESSFUL));
+        BuildCache buildCache = newBuildCache(10, "42", newStatus(1, BuilderState.IN_QUEUE));
+
+        BuildCache.Build build = buildCache.build(project, true);
+
+        assertFalse(build.isReused());
+        assertNull(build.getFingerprint());
+        assertEquals(fingerprints.get(), 0);
+        assertNull(buildCache.get(project));
+    }
+
+    @Test
+    public void testOldestBuildsAreForgotten() {
+        BuildCache buildCache = newBuildCache(2, "42", newStatus(1, BuilderState.IN_QUEUE));
+        UserProjectReference project1 = newProject("project1", null);
+        UserProjectReference project2 = newProject("project2", null);
+        UserProjectReference project3 = newProject("project3", null);
+
+        buildCache.put(project1, "1", 1, null);
+        buildCache.put(project2, "2", 2, null);
+        buildCache.put(project3, "3", 3, null);
+
+        assertNull(buildCache.get(project1));
+        assertNotNull(buildCache.get(project2));
+        assertNotNull(buildCache.get(project3));
+    }
+
+    @Test
+    public void testFingerprintIsTheModificationDate() {
+        Project projectDescription = Mockito.mock(Project.class);
+        doReturn(new Date(1234)).when(projectDescription).modificationDate();
+        Request<Project> projectRequest = Mockito.mock(Request.class);
+        doReturn(projectDescription).when(projectRequest).execute();
+        ProjectClient projectClient = Mockito.mock(ProjectClient.class);
+        doReturn(projectRequest).when(projectClient).getProject(anyString(), any(ProjectReference.class));
+        Codenvy codenvy = Mockito.mock(Codenvy.class);
+        doReturn(projectClient).when(codenvy).project();
+        UserWorkspace workspace = Mockito.mock(UserWorkspace.class);
+        doReturn("workspace1").when(workspace).id();
+        UserProjectReference project = Mockito.mock(UserProjectReference.class);
+        doReturn(codenvy).when(project).getCodenvy();
+        doReturn(workspace).when(project).getWorkspace();
+
+        assertEquals(new BuildCache(preferences).getFingerprint(project), "1234");
+
+        // no date, no fingerprint
+        doReturn(null).when(projectDescription).modificationDate();
+        assertNull(new BuildCache(preferences).getFingerprint(project));
+    }
+}
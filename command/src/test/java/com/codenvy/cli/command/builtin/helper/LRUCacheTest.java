@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Test the eviction and the expiration of the values of the cache.
+ */
+public class LRUCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        LRUCache<String, String> cache = new LRUCache<>(2, 60 * 1000);
+        cache.put("first", "1");
+        cache.put("second", "2");
+        // first is now the most recently used
+        assertEquals(cache.get("first"), "1");
+        cache.put("third", "3");
+
+        assertNull(cache.get("second"));
+        assertEquals(cache.get("first"), "1");
+        assertEquals(cache.get("third"), "3");
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getHits(), 3);
+        assertEquals(cache.getMisses(), 1);
+    }
+
+    @Test
+    public void testValuesExpire() throws InterruptedException {
+        LRUCache<String, String> cache = new LRUCache<>(2, 1);
+        cache.put("first", "1");
+        Thread.sleep(20);
+
+        assertNull(cache.get("first"));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getMisses(), 1);
+    }
+
+    @Test
+    public void testRemovedValueIsMissed() {
+        LRUCache<String, String> cache = new LRUCache<>(2, 60 * 1000);
+        cache.put("first", "1");
+        cache.remove("first");
+
+        assertNull(cache.get("first"));
+        assertEquals(cache.getHits(), 0);
+    }
+
+    @Test
+    public void testFilteredValuesAreRemoved() {
+        LRUCache<String, String> cache = new LRUCache<>(3, 60 * 1000);
+        cache.put("first", "1");
+        cache.put("second", "2");
+        cache.put("third", "3");
+
+        cache.remove(new LRUCache.KeyFilter<String>() {
+            @Override
+            public boolean accept(String key) {
+                return key.startsWith("t");
+            }
+        });
+
+        assertNull(cache.get("third"));
+        assertEquals(cache.get("first"), "1");
+        assertEquals(cache.get("second"), "2");
+        assertEquals(cache.size(), 2);
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test the limit of concurrent tasks on each remote.
+ */
+public class RemoteTaskExecutorTest {
+
+    @Test
+    public void testLimitPerRemote() throws Exception {
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(8, 2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(executor.submit("remote", new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int current = running.incrementAndGet();
+                        while (maxRunning.get() < current) {
+                            maxRunning.compareAndSet(maxRunning.get(), current);
+                        }
+                        Thread.sleep(10);
+                        running.decrementAndGet();
+                        return current;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testBusyRemoteDoesNotBlockOthers() throws Exception {
+        // two threads: a task waiting for its remote in a thread would prevent the other remote from being used
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(2, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<Boolean> blocking = executor.submit("busy", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return release.await(10, TimeUnit.SECONDS);
+                }
+            });
+            Future<Boolean> waiting = executor.submit("busy", new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return true;
+                }
+            });
+            Future<Boolean> other = executor.submit("other", new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return true;
+                }
+            });
+
+            assertTrue(other.get(10, TimeUnit.SECONDS));
+            assertFalse(waiting.isDone());
+            release.countDown();
+            assertTrue(blocking.get(10, TimeUnit.SECONDS));
+            assertTrue(waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletionService() throws Exception {
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(4, 1);
+        try {
+            CompletionService<String> completionService = executor.newCompletionService();
+            for (int i = 0; i < 4; i++) {
+                final String remote = "remote" + (i % 2);
+                final int index = i;
+                executor.submit(completionService, remote, new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return remote + "-" + index;
+                    }
+                });
+            }
+
+            Set<String> results = new HashSet<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(completionService.poll(10, TimeUnit.SECONDS).get());
+            }
+            assertEquals(results.size(), 4);
+            assertTrue(results.contains("remote1-3"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitingTasksAreExecutedAfterShutdown() throws Exception {
+        RemoteTaskExecutor executor = new RemoteTaskExecutor(2, 1);
+        final AtomicInteger executed = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(executor.submit("remote", new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep(10);
+                    return executed.incrementAndGet();
+                }
+            }));
+        }
+        executor.shutdown();
+
+        for (Future<Integer> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(executed.get(), 3);
+    }
+}
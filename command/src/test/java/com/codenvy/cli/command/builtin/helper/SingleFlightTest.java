@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.helper;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Test the coalescing of identical requests.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentRequestsAreShared() throws Exception {
+        final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<Integer> request = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                int call = calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return call;
+            }
+        };
+        Callable<Integer> caller = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return singleFlight.execute("projects", request);
+            }
+        };
+
+        FutureTask<Integer> first = new FutureTask<>(caller);
+        FutureTask<Integer> second = new FutureTask<>(caller);
+        Thread firstThread = new Thread(first);
+        Thread secondThread = new Thread(second);
+        try {
+            firstThread.start();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            secondThread.start();
+            // second caller is blocked, either waiting for the running request or running its own one
+            long deadline = System.currentTimeMillis() + 10 * 1000;
+            while (secondThread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertEquals(first.get(10, TimeUnit.SECONDS).intValue(), 1);
+            assertEquals(second.get(10, TimeUnit.SECONDS).intValue(), 1);
+            assertEquals(calls.get(), 1);
+        } finally {
+            release.countDown();
+            firstThread.interrupt();
+            secondThread.interrupt();
+        }
+    }
+
+    @Test
+    public void testResultIsNotKept() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> request = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return calls.incrementAndGet();
+            }
+        };
+
+        assertEquals(singleFlight.execute("projects", request).intValue(), 1);
+        assertEquals(singleFlight.execute("projects", request).intValue(), 2);
+    }
+
+    @Test
+    public void testErrorIsThrown() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        try {
+            singleFlight.execute("projects", new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    throw new IllegalArgumentException("invalid");
+                }
+            });
+            fail("the error of the request should be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(), "invalid");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.command.builtin.util.download;
+
+import com.codenvy.cli.command.builtin.util.SHA1;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Test the download of artifacts against a local HTTP server.
+ */
+public class ArtifactDownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private HttpServer server;
+
+    private byte[] content;
+
+    private boolean acceptRanges;
+
+    private boolean sendMD5;
+
+    private boolean wrongMD5;
+
+    private AtomicInteger rangeRequests;
+
+    private String receivedToken;
+
+    private Path destination;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        content = new byte[100 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        acceptRanges = true;
+        sendMD5 = true;
+        wrongMD5 = false;
+        rangeRequests = new AtomicInteger();
+        destination = Files.createTempFile("artifact", ".zip");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/artifact.zip", new ArtifactHandler());
+        server.start();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        server.stop(0);
+        Files.deleteIfExists(destination);
+    }
+
+    protected URL getURL() throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/artifact.zip");
+    }
+
+    protected ArtifactDownloader newDownloader() throws IOException {
+        RequestSigner signer = new RequestSigner() {
+            @Override
+            public void sign(HttpURLConnection connection) {
+                connection.setRequestProperty("Authorization", "myToken");
+            }
+        };
+        return new ArtifactDownloader(getURL(), signer).withChunks(4).withMinChunkSize(16 * 1024);
+    }
+
+    @Test
+    public void testRangedDownload() throws Exception {
+        DownloadResult result = newDownloader().withExpectedSha1(sha1(content)).download(destination);
+
+        assertEquals(result.getChunks(), 4);
+        assertEquals(rangeRequests.get(), 4);
+        assertEquals(result.getSize(), content.length);
+        assertEquals(result.getSha1(), sha1(content));
+        assertEquals(Files.readAllBytes(destination), content);
+        assertEquals(receivedToken, "myToken");
+    }
+
+    @Test
+    public void testSequentialDownloadWithoutRangeSupport() throws Exception {
+        acceptRanges = false;
+
+        DownloadResult result = newDownloader().download(destination);
+
+        assertEquals(result.getChunks(), 1);
+        assertEquals(rangeRequests.get(), 0);
+        assertEquals(Files.readAllBytes(destination), content);
+    }
+
+    @Test
+    public void testSmallArtifactIsDownloadedSequentially() throws Exception {
+        content = "small artifact".getBytes("UTF-8");
+
+        DownloadResult result = newDownloader().download(destination);
+
+        assertEquals(result.getChunks(), 1);
+        assertEquals(Files.readAllBytes(destination), content);
+    }
+
+    @Test
+    public void testInvalidSha1() throws Exception {
+        sendMD5 = false;
+        try {
+            newDownloader().withExpectedSha1("0000").download(destination);
+            fail("Checksum should not match");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("SHA-1"));
+        }
+        assertFalse(Files.exists(destination));
+    }
+
+    @Test
+    public void testInvalidContentMD5() throws Exception {
+        wrongMD5 = true;
+        try {
+            newDownloader().download(destination);
+            fail("Checksum should not match");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("MD5"));
+        }
+        assertFalse(Files.exists(destination));
+    }
+
+    protected static String sha1(byte[] bytes) throws Exception {
+        return SHA1.bytesToHexa(MessageDigest.getInstance("SHA-1").digest(bytes));
+    }
+
+    /**
+     * Serves the content, with range support if enabled.
+     */
+    private class ArtifactHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            assertEquals(exchange.getRequestURI().getQuery(), null);
+            receivedToken = exchange.getRequestHeaders().getFirst("Authorization");
+
+            byte[] body = content;
+            int code = 200;
+            if (acceptRanges) {
+                exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range != null) {
+                    Matcher matcher = RANGE.matcher(range);
+                    assertTrue(matcher.matches());
+                    int start = Integer.parseInt(matcher.group(1));
+                    int end = Integer.parseInt(matcher.group(2));
+                    body = new byte[end - start + 1];
+                    System.arraycopy(content, start, body, 0, body.length);
+                    code = 206;
+                    rangeRequests.incrementAndGet();
+                }
+            }
+            if (sendMD5) {
+                try {
+                    byte[] md5 = MessageDigest.getInstance("MD5").digest(content);
+                    if (wrongMD5) {
+                        md5[0]++;
+                    }
+                    exchange.getResponseHeaders().add("Content-MD5", Base64Variants.MIME_NO_LINEFEEDS.encode(md5));
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                exchange.sendResponseHeaders(code, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+}
@@ -28,6 +28,8 @@ import java.net.URISyntaxException;
 import static org.mockito.Mockito.doReturn;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 
 /**
  * @author Florent Benoit
@@ -103,4 +105,38 @@ public class PreferencesDataStoreTest extends AbsCommandTest {
 
     }
 
+    @Test(dependsOnMethods = "testOnlyOneInstanceGet")
+    public void testCredentialsAreConvertedOnce() throws Exception {
+        init();
+
+        Credentials credentials = dataStoreStephane.getCredentials("dummy");
+        assertSame(dataStoreStephane.get("dummy"), credentials);
+
+        dataStoreStephane.invalidate();
+        Credentials reloaded = dataStoreStephane.getCredentials("dummy");
+        assertNotSame(reloaded, credentials);
+        assertEquals(reloaded.token().value(), "def456");
+    }
+
+    @Test(dependsOnMethods = "testCredentialsAreConvertedOnce")
+    public void testCredentialsWrittenBySharedPreferences() throws Exception {
+        init();
+
+        // another store of the same remote, sharing the same preferences
+        PreferencesDataStore otherDataStore = new PreferencesDataStore(preferences, "stephane_dev", new DummyCodenvyClient());
+        Credentials credentials = dataStoreStephane.getCredentials("dummy");
+        assertEquals(otherDataStore.getCredentials("dummy").username(), "stephane");
+
+        Credentials update = Mockito.mock(Credentials.class);
+        doReturn("toto").when(update).username();
+        doReturn(credentials.token()).when(update).token();
+        dataStoreStephane.put("stephane_dev", update);
+        try {
+            assertEquals(otherDataStore.getCredentials("dummy").username(), "toto");
+        } finally {
+            dataStoreStephane.put("stephane_dev", credentials);
+        }
+        assertEquals(otherDataStore.getCredentials("dummy").username(), "stephane");
+    }
+
 }
@@ -96,4 +96,33 @@ public interface Preferences {
      * @return {@code true} if node exists, {@code false} either.
      */
     boolean pathExists(String key);
+
+    /**
+     * <p>
+     * Apply several modifications at once. While the batch is running, other threads wait for it to complete before reading or modifying
+     * the preferences tree, so they never see a partially applied batch. The modifications are persisted once, when the batch completes.
+     * </p>
+     * <p>
+     * Batches can be nested, the modifications are persisted when the outermost batch completes. If the batch throws an exception, the
+     * modifications it has already applied are reverted before the exception is thrown again, and nothing is persisted if the outermost
+     * batch fails.
+     * </p>
+     *
+     * @param batch the modifications to apply on this node.
+     */
+    void batch(PreferencesBatch batch);
+
+    /**
+     * Register a listener notified when the entries of this node are changed by another process, once the changes have been loaded.
+     *
+     * @param listener the listener to add.
+     */
+    void addListener(PreferencesListener listener);
+
+    /**
+     * Unregister a listener of this node.
+     *
+     * @param listener the listener to remove.
+     */
+    void removeListener(PreferencesListener listener);
 }
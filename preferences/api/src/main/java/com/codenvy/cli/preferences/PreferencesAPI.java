@@ -10,15 +10,24 @@
  *******************************************************************************/
 package com.codenvy.cli.preferences;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Entry point to get the {@link com.codenvy.cli.preferences.Preferences} instance.
+ * <p>
+ * A single instance is built for each URI and is shared by all the callers, so every session sees the same content and the
+ * preferences are only loaded once. Callers that no longer need the preferences can release them with
+ * {@link #releasePreferences(URI)}, the instance is closed once it has been released by all of them.
+ * </p>
  * @author Florent Benoit
  */
 public class PreferencesAPI {
@@ -33,17 +42,33 @@ public class PreferencesAPI {
      */
     private static List<PreferencesProvider> preferencesProviders = new CopyOnWriteArrayList<>();
 
+    /**
+     * Preferences already built, indexed by their normalized URI. Guarded by itself.
+     */
+    private static final Map<URI, SharedPreferences> sharedPreferences = new HashMap<>();
+
     public static void addPreferencesProvider(PreferencesProvider preferencesProvider) {
         preferencesProviders.add(preferencesProvider);
     }
 
+    /**
+     * Remove the given provider along with the preferences it has built, the provider is responsible for closing them.
+     */
     public static void removePreferencesProvider(PreferencesProvider preferencesProvider) {
         preferencesProviders.remove(preferencesProvider);
+        synchronized (sharedPreferences) {
+            Iterator<SharedPreferences> iterator = sharedPreferences.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().provider == preferencesProvider) {
+                    iterator.remove();
+                }
+            }
+        }
     }
 
 
     /**
-     * @return the {@link PreferencesProvider} instance.
+     * @return the {@link Preferences} instance shared by all the callers using the same URI.
      */
     public static Preferences getPreferences(URI uri) {
         if (!initialized.get()) {
@@ -62,10 +87,50 @@ public class PreferencesAPI {
             initialized.set(true);
       }
 
+        URI key = uri.normalize();
+        synchronized (sharedPreferences) {
+            SharedPreferences shared = sharedPreferences.get(key);
+            if (shared == null) {
+                shared = buildPreferences(key);
+                if (shared == null) {
+                    return null;
+                }
+                sharedPreferences.put(key, shared);
+            }
+            shared.references++;
+            return shared.preferences;
+        }
+    }
+
+    /**
+     * Release the preferences obtained with {@link #getPreferences(URI)}. Once all the callers have released them, the preferences are
+     * closed if they hold resources, and the next call to {@link #getPreferences(URI)} will build a new instance.
+     */
+    public static void releasePreferences(URI uri) {
+        Preferences preferences;
+        synchronized (sharedPreferences) {
+            URI key = uri.normalize();
+            SharedPreferences shared = sharedPreferences.get(key);
+            if (shared == null || --shared.references > 0) {
+                return;
+            }
+            sharedPreferences.remove(key);
+            preferences = shared.preferences;
+        }
+        if (preferences instanceof Closeable) {
+            try {
+                ((Closeable)preferences).close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to close the preferences " + uri, e);
+            }
+        }
+    }
+
+    private static SharedPreferences buildPreferences(URI uri) {
         for (PreferencesProvider preferencesProvider : preferencesProviders) {
             Preferences prefs = preferencesProvider.buildPreferences(uri);
             if (prefs != null) {
-                return prefs;
+                return new SharedPreferences(prefs, preferencesProvider);
             }
         }
 
@@ -77,5 +142,18 @@ public class PreferencesAPI {
         return null;
     }
 
+    /**
+     * Preferences built for an URI along with the number of callers using them.
+     */
+    private static class SharedPreferences {
+        private final Preferences         preferences;
+        private final PreferencesProvider provider;
+        private int                       references;
+
+        private SharedPreferences(Preferences preferences, PreferencesProvider provider) {
+            this.preferences = preferences;
+            this.provider = provider;
+        }
+    }
 
 }
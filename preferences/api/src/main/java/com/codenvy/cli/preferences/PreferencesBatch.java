@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences;
+
+/**
+ * A set of modifications applied at once on a {@link Preferences} node with {@link Preferences#batch(PreferencesBatch)}.
+ *
+ * @see Preferences#batch(PreferencesBatch)
+ */
+public interface PreferencesBatch {
+
+    /**
+     * Apply the modifications on the given node. Modifications are not visible to other threads and are not persisted before this
+     * method returns.
+     *
+     * @param preferences the node on which the batch has been started.
+     */
+    void apply(Preferences preferences);
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences;
+
+/**
+ * Listener of the changes made on a {@link Preferences} node by another process.
+ *
+ * @see Preferences#addListener(PreferencesListener)
+ */
+public interface PreferencesListener {
+
+    /**
+     * Called when an entry of the node has been added, modified or removed by another process. Changes made by the current process
+     * are not reported.
+     *
+     * @param preferences the node containing the entry.
+     * @param key the key of the entry.
+     */
+    void changed(Preferences preferences, String key);
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+/**
+ * Bean stored in the preferences by the benchmarks, like the remotes of the CLI.
+ */
+public class BenchmarkRemote {
+    private String url;
+    private String token;
+
+    public BenchmarkRemote() {
+    }
+
+    public BenchmarkRemote(String url, String token) {
+        this.url = url;
+        this.token = token;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the time needed to load the preferences file at startup with the JSON and the Smile formats, along with the allocations
+ * given by the GC profiler. It is not run by the build, run it with
+ * {@code mvn -Pbenchmark test-compile exec:java -Dbenchmark.class=com.codenvy.cli.preferences.file.PreferencesFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PreferencesFormatBenchmark {
+
+    @Param({"5", "50"})
+    private int remotes;
+
+    private File jsonFile;
+
+    private File smileFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonFile = File.createTempFile("preferences", ".json");
+        smileFile = File.createTempFile("preferences", ".smile");
+        FilePreferences jsonPreferences = new FilePreferences(jsonFile, 0);
+        for (int i = 0; i < remotes; i++) {
+            jsonPreferences.path("remotes").put("remote" + i, new BenchmarkRemote("https://codenvy.com/" + i, "token" + i));
+        }
+        jsonPreferences.close();
+
+        smileFile.delete();
+        SmilePreferencesProvider.migrate(jsonFile, smileFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jsonFile.delete();
+        smileFile.delete();
+    }
+
+    @Benchmark
+    public FilePreferences loadJson() {
+        return new FilePreferences(jsonFile, 0, PreferencesFormat.JSON).setDisableSaveOnChanges();
+    }
+
+    @Benchmark
+    public FilePreferences loadSmile() {
+        return new FilePreferences(smileFile, 0, PreferencesFormat.SMILE).setDisableSaveOnChanges();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(PreferencesFormatBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
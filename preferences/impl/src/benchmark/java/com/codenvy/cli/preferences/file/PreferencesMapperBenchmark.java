@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the loading of a preferences tree with the shared mapper against a mapper configured for each node, as it was done before.
+ * The GC profiler gives the allocations of each approach. It is not run by the build, run it with
+ * {@code mvn -Pbenchmark test-compile exec:java -Dbenchmark.class=com.codenvy.cli.preferences.file.PreferencesMapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PreferencesMapperBenchmark {
+
+    @Param({"5", "50"})
+    private int remotes;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> remotesNode = new LinkedHashMap<>();
+        for (int i = 0; i < remotes; i++) {
+            remotesNode.put("remote" + i, new BenchmarkRemote("https://codenvy.com/" + i, "token" + i));
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("remotes", remotesNode);
+        content = new ObjectMapper().writeValueAsBytes(root);
+    }
+
+    /**
+     * Load the tree and read each remote with the shared mapper.
+     */
+    @Benchmark
+    public void sharedMapper(Blackhole blackhole) throws IOException {
+        JsonPreferences rootNode = PreferencesMapper.reader(JsonPreferences.class).readValue(content);
+        Preferences remotesNode = rootNode.path("remotes");
+        for (int i = 0; i < remotes; i++) {
+            blackhole.consume(remotesNode.get("remote" + i, BenchmarkRemote.class));
+        }
+    }
+
+    /**
+     * Same work with a mapper created and configured for each node of the tree.
+     */
+    @Benchmark
+    public void mapperPerNode(Blackhole blackhole) throws IOException {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rootNode = newMapper().readValue(content, Map.class);
+        ObjectMapper remotesMapper = newMapper();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> remotesNode = (Map<String, Object>)rootNode.get("remotes");
+        for (int i = 0; i < remotes; i++) {
+            blackhole.consume(remotesMapper.convertValue(remotesNode.get("remote" + i), BenchmarkRemote.class));
+        }
+    }
+
+    private static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        mapper.setVisibility(PropertyAccessor.GETTER, Visibility.PUBLIC_ONLY);
+        mapper.setVisibility(PropertyAccessor.IS_GETTER, Visibility.PUBLIC_ONLY);
+        // type is built for each node too
+        mapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        return mapper;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(PreferencesMapperBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
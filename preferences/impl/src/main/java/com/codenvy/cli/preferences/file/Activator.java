@@ -11,7 +11,6 @@
 package com.codenvy.cli.preferences.file;
 
 import com.codenvy.cli.preferences.PreferencesAPI;
-import com.codenvy.cli.preferences.PreferencesProvider;
 
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -21,7 +20,13 @@ import org.osgi.framework.BundleContext;
  */
 public class Activator implements BundleActivator {
 
-    private PreferencesProvider fileProvider;
+    private FilePreferencesProvider fileProvider;
+
+    private SmilePreferencesProvider smileProvider;
+
+    private MemoryPreferencesProvider memoryProvider;
+
+    private JournalPreferencesProvider journalProvider;
 
     /**
      * Called when this bundle is started so the Framework can perform the
@@ -44,6 +49,12 @@ public class Activator implements BundleActivator {
     public void start(BundleContext context) throws Exception {
         this.fileProvider = new FilePreferencesProvider();
         PreferencesAPI.addPreferencesProvider(fileProvider);
+        this.smileProvider = new SmilePreferencesProvider();
+        PreferencesAPI.addPreferencesProvider(smileProvider);
+        this.memoryProvider = new MemoryPreferencesProvider();
+        PreferencesAPI.addPreferencesProvider(memoryProvider);
+        this.journalProvider = new JournalPreferencesProvider();
+        PreferencesAPI.addPreferencesProvider(journalProvider);
     }
 
     /**
@@ -69,6 +80,20 @@ public class Activator implements BundleActivator {
     public void stop(BundleContext context) throws Exception {
     if (fileProvider != null) {
         PreferencesAPI.removePreferencesProvider(fileProvider);
+        // save pending modifications
+        fileProvider.close();
+    }
+    if (smileProvider != null) {
+        PreferencesAPI.removePreferencesProvider(smileProvider);
+        smileProvider.close();
+    }
+    if (memoryProvider != null) {
+        PreferencesAPI.removePreferencesProvider(memoryProvider);
+        memoryProvider.close();
+    }
+    if (journalProvider != null) {
+        PreferencesAPI.removePreferencesProvider(journalProvider);
+        journalProvider.close();
     }
     }
 }
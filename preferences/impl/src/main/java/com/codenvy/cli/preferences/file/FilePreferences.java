@@ -11,36 +11,162 @@
 package com.codenvy.cli.preferences.file;
 
 import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.codenvy.cli.preferences.PreferencesListener;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Entry point to globally manage all cli preferences. Load a preferences file in JSON format in memory and dump it when preferences are
  * modified. This class store a inner {@link Preferences} root node and act as an adapter to it, decorating it with its specific file
  * persisting action when needed.
+ * <p>
+ * Writes are performed in background: all the modifications made during a short delay are saved with a single write of the file.
+ * The file is written in a temporary file which is then renamed, so the preferences file is never partially written.
+ * Pending modifications are written when {@link #flush()} or {@link #close()} is called and when the JVM exits.
+ * </p>
+ * <p>
+ * Several processes can share the same file: writes hold a lock on a {@code .lock} file next to the preferences file, and if another
+ * process has written the file since it has been read, the modifications of this process are applied on the content of the file
+ * before writing it. Changes made by other processes are detected by comparing the last modification time, the size and the key of
+ * the file, and are reloaded when any node of the tree is read or, if the file is watched, as soon as they are written.
+ * </p>
+ * <p>
+ * The content is serialized while the preferences are locked, but the file is written once they are unlocked: other threads can
+ * modify the preferences while the file is written, their modifications are saved by the next write.
+ * </p>
  *
  * @author Stéphane Daviet
  */
-public class FilePreferences implements Preferences, LifecycleCallback {
-    private JsonPreferences    rootNode;
+public class FilePreferences implements Preferences, LifecycleCallback, Closeable {
+    /**
+     * Default delay in milliseconds during which modifications are gathered before writing the file.
+     */
+    public static final long DEFAULT_WRITE_DELAY = 200L;
 
-    private final ObjectMapper mapper;
+    /**
+     * Minimum delay in milliseconds between two checks of the file for changes made by other processes.
+     */
+    private static final long CHECK_INTERVAL = 1000L;
+
+    /**
+     * Monitors of the preferences files, as file locks can't be used between the threads of the same JVM.
+     */
+    private static final ConcurrentMap<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private JsonPreferences    rootNode;
 
     private final File         preferencesFile;
 
+    private final Object       fileMonitor;
+
+    private final long         writeDelay;
+
+    private final PreferencesFormat format;
+
+    /**
+     * Version of the file the preferences have been read from or written to.
+     */
+    private volatile FileVersion knownVersion;
+
+    /**
+     * Last time the file has been checked for changes.
+     */
+    private volatile long lastCheck;
+
+    /**
+     * Modifications have not yet been written.
+     */
+    private final AtomicBoolean dirty;
+
+    /**
+     * Executor writing the file in background, created on first modification.
+     */
+    private ScheduledExecutorService writer;
+
+    /**
+     * Hook writing pending modifications when JVM exits.
+     */
+    private Thread shutdownHook;
+
+    /**
+     * Service watching the folder of the file, null if the file is not watched.
+     */
+    private WatchService watchService;
+
+    /**
+     * Callbacks run once the preferences are closed.
+     */
+    private final List<Runnable> closeCallbacks = new CopyOnWriteArrayList<>();
+
     /**
      * Create a {@link FilePreferences} linked to the specified {@link File}.
      *
      * @param preferencesFile the {@link File} to link to this new {@link FilePreferences} instance.
      */
     public FilePreferences(File preferencesFile) {
-        this.mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this(preferencesFile, DEFAULT_WRITE_DELAY);
+    }
+
+    /**
+     * Create a {@link FilePreferences} linked to the specified {@link File}.
+     *
+     * @param preferencesFile the {@link File} to link to this new {@link FilePreferences} instance.
+     * @param writeDelay the delay in milliseconds during which modifications are gathered before writing the file, 0 to write the file
+     * on each modification.
+     */
+    public FilePreferences(File preferencesFile, long writeDelay) {
+        this(preferencesFile, writeDelay, PreferencesFormat.JSON);
+    }
+
+    /**
+     * Create a {@link FilePreferences} linked to the specified {@link File}.
+     *
+     * @param preferencesFile the {@link File} to link to this new {@link FilePreferences} instance.
+     * @param writeDelay the delay in milliseconds during which modifications are gathered before writing the file, 0 to write the file
+     * on each modification.
+     * @param format the encoding of the file.
+     */
+    public FilePreferences(File preferencesFile, long writeDelay, PreferencesFormat format) {
+        this.format = format;
         this.preferencesFile = preferencesFile;
+        this.fileMonitor = getFileMonitor(preferencesFile);
+        this.writeDelay = writeDelay;
+        this.dirty = new AtomicBoolean();
         loadFile();
     }
 
@@ -52,37 +178,34 @@ public class FilePreferences implements Preferences, LifecycleCallback {
     /**
      * {@inheritDoc}
      * <p>
-     * Write the file back on the file system./
-     * <p>
+     * Schedule the write of the file back on the file system.
+     * </p>
      */
     @Override
     public void put(String key, Object value) {
         rootNode.put(key, value);
-        dumpFile();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Write the file back on the file system./
-     * <p>
+     * Schedule the write of the file back on the file system.
+     * </p>
      */
     @Override
     public void merge(String key, Object value) {
         rootNode.merge(key, value);
-        dumpFile();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Write the file back on the file system./
-     * <p>
+     * Schedule the write of the file back on the file system.
+     * </p>
      */
     @Override
     public void delete(String key) {
         rootNode.delete(key);
-        dumpFile();
     }
 
     /**
@@ -106,6 +229,27 @@ public class FilePreferences implements Preferences, LifecycleCallback {
         return rootNode.pathExists(key);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The file is written once for the whole batch.
+     * </p>
+     */
+    @Override
+    public void batch(PreferencesBatch batch) {
+        rootNode.batch(batch);
+    }
+
+    @Override
+    public void addListener(PreferencesListener listener) {
+        rootNode.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(PreferencesListener listener) {
+        rootNode.removeListener(listener);
+    }
+
     /**
      * Load the file where preferences are stored.
      *
@@ -117,48 +261,461 @@ public class FilePreferences implements Preferences, LifecycleCallback {
                 if (!preferencesFile.createNewFile()) {
                     throw new RuntimeException("Can not create file.");
                 }
-                this.rootNode = new JsonPreferences();
-            } else {
-                this.rootNode = mapper.readValue(preferencesFile, JsonPreferences.class);
             }
-        } catch (JsonMappingException e) {
-            this.rootNode = new JsonPreferences();
+            this.knownVersion = FileVersion.of(getVersionedFile());
+            this.rootNode = readFile();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
         this.rootNode.addCallback(this);
+        if (!disableSaveOnChanges) {
+            this.rootNode.recordModifications();
+        }
+        // nodes kept by callers check the file as well
+        this.rootNode.setReadCallback(new Runnable() {
+            @Override
+            public void run() {
+                checkForChanges();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Read the content of the file.
+     *
+     * @return the preferences stored in the file, empty preferences if the file is empty or invalid.
+     */
+    protected JsonPreferences readFile() throws IOException {
+        try {
+            return format.reader().readValue(preferencesFile);
+        } catch (JsonMappingException e) {
+            return new JsonPreferences();
+        }
+    }
+
+    /**
+     * Reload the preferences if the file has been changed by another process. The modifications of this process that have not yet
+     * been written are kept.
+     *
+     * @return the current {@link FilePreferences} to chain commands.
+     */
+    public FilePreferences reloadIfChanged() {
+        // cheap check without any lock
+        FileVersion currentVersion = FileVersion.of(getVersionedFile());
+        if (currentVersion == null || currentVersion.equals(knownVersion)) {
+            return this;
+        }
+
+        Lock writeLock = rootNode.getLock().writeLock();
+        writeLock.lock();
+        try {
+            synchronized (fileMonitor) {
+                mergeChanges();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            writeLock.unlock();
+        }
+        rootNode.fireChanges();
         return this;
     }
 
     /**
-     * Dump the in-memory cache into the file.
+     * Watch the file so that changes made by other processes are loaded as soon as they are written, and listeners are notified.
+     *
+     * @return the current {@link FilePreferences} to chain commands.
+     */
+    public synchronized FilePreferences watch() {
+        if (watchService != null) {
+            return this;
+        }
+        final Path target = getVersionedFile().toAbsolutePath();
+        final WatchService service;
+        try {
+            service = target.getFileSystem().newWatchService();
+            target.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.watchService = service;
+
+        Thread watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        WatchKey watchKey = service.take();
+                        boolean modified = false;
+                        for (WatchEvent<?> event : watchKey.pollEvents()) {
+                            modified |= event.kind() == OVERFLOW || target.getFileName().equals(event.context());
+                        }
+                        watchKey.reset();
+                        // our own writes are ignored as the version of the file is known
+                        if (modified) {
+                            try {
+                                reloadIfChanged();
+                            } catch (RuntimeException e) {
+                                System.err.println("Unable to reload preferences from " + preferencesFile + ": " + e.getMessage());
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ClosedWatchServiceException e) {
+                    // preferences have been closed
+                }
+            }
+        }, "codenvy-preferences-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return this;
+    }
+
+    /**
+     * Check from time to time if the file has been changed by another process. Called before any node of the tree is read.
+     */
+    protected void checkForChanges() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= CHECK_INTERVAL) {
+            lastCheck = now;
+            reloadIfChanged();
+        }
+    }
+
+    /**
+     * Apply the modifications of this process on the content of the file if it has been changed since it has been read or written.
+     * Must be called with the write lock of the preferences and the monitor of the file.
+     */
+    private void mergeChanges() throws IOException {
+        FileVersion currentVersion = FileVersion.of(getVersionedFile());
+        if (currentVersion == null || currentVersion.equals(knownVersion)) {
+            return;
+        }
+        rootNode.reload(readFile());
+        knownVersion = currentVersion;
+    }
+
+    /**
+     * Dump the in-memory cache into the file. Content is written in a temporary file of the same folder which then replaces the
+     * preferences file. Preferences are serialized while they are locked, so a batch in progress is never partially saved, and they are
+     * unlocked before the file is written.
+     * <p>
+     * The file is locked during the whole save, so the content written by another process can be merged with the modifications of this
+     * one.
+     * </p>
      *
      * @return the current {@link FilePreferences} to chain commands.
      */
     protected FilePreferences dumpFile() {
-        synchronized (preferencesFile) {
+        // preferences lock is taken first, a thread modifying the preferences may be waiting for the file monitor
+        Lock writeLock = rootNode.getLock().writeLock();
+        writeLock.lock();
+        boolean locked = true;
+        try {
+            synchronized (fileMonitor) {
+                try (FileChannel lockChannel = FileChannel.open(getLockFile(), CREATE, WRITE);
+                     FileLock ignored = lockChannel.lock()) {
+                    PendingWrite pendingWrite;
+                    int savedModifications;
+                    try {
+                        mergeChanges();
+                        pendingWrite = prepareWrite();
+                        savedModifications = rootNode.getModifications().size();
+                    } finally {
+                        // preferences can be modified during the disk I/O, the write lock is no longer needed while the file is locked
+                        writeLock.unlock();
+                        locked = false;
+                    }
+                    pendingWrite.write();
+                    rootNode.removeModifications(savedModifications);
+                    knownVersion = FileVersion.of(getVersionedFile());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (locked) {
+                writeLock.unlock();
+            }
+        }
+        // changes of other processes merged before the write
+        rootNode.fireChanges();
+        return this;
+    }
+
+    private static Object getFileMonitor(File preferencesFile) {
+        Path path = preferencesFile.toPath().toAbsolutePath().normalize();
+        Object monitor = new Object();
+        Object existing = FILE_MONITORS.putIfAbsent(path, monitor);
+        return existing != null ? existing : monitor;
+    }
+
+    /**
+     * @return the file locked by the processes writing the preferences.
+     */
+    protected Path getLockFile() {
+        Path target = preferencesFile.toPath().toAbsolutePath();
+        return target.resolveSibling(target.getFileName().toString() + ".lock");
+    }
+
+    /**
+     * @return the file preferences are read from
+     */
+    protected File getPreferencesFile() {
+        return preferencesFile;
+    }
+
+    /**
+     * @return the encoding of the file
+     */
+    protected PreferencesFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the root node of the preferences tree
+     */
+    protected JsonPreferences getRootNode() {
+        return rootNode;
+    }
+
+    /**
+     * @return the file whose version tells if the preferences have been changed by another process.
+     */
+    protected Path getVersionedFile() {
+        return preferencesFile.toPath();
+    }
+
+    /**
+     * Serialize the content of the preferences. Called with the write lock of the preferences and the lock of the file.
+     *
+     * @return the write of the content in a temporary file which then replaces the preferences file, performed once the preferences
+     * are unlocked
+     */
+    protected PendingWrite prepareWrite() throws IOException {
+        final byte[] content = format.writer().writeValueAsBytes(rootNode);
+        return new PendingWrite() {
+            @Override
+            public void write() throws IOException {
+                replaceFile(preferencesFile.toPath(), content);
+            }
+        };
+    }
+
+    /**
+     * Write the given content in a temporary file of the same folder which then replaces the target file, so the target file is never
+     * partially written.
+     */
+    protected static void replaceFile(Path file, byte[] content) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmpFile, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
             try {
-                mapper.writeValue(preferencesFile, rootNode);
-                return this;
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                Files.move(tmpFile, target, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, target, REPLACE_EXISTING);
+            }
+            tmpFile = null;
+        } finally {
+            if (tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException e) {
+                    // ignore, the original error is more relevant
+                }
             }
         }
     }
 
     @Override
     public void notify(LifecycleEvent lifecycleEvent) {
-        // we dump the file for each event
+        // we schedule a dump of the file for each event
         if (!disableSaveOnChanges) {
+            scheduleDump();
+        }
+    }
+
+    /**
+     * Mark the preferences as modified and schedule the write of the file if it is not already scheduled.
+     */
+    protected void scheduleDump() {
+        if (writeDelay <= 0) {
+            dirty.set(true);
+            flush();
+            return;
+        }
+        if (dirty.compareAndSet(false, true)) {
+            getWriter().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        System.err.println("Unable to save preferences in " + preferencesFile + ": " + e.getMessage());
+                    }
+                }
+            }, writeDelay, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the pending modifications in the file.
+     *
+     * @return the current {@link FilePreferences} to chain commands.
+     */
+    public FilePreferences flush() {
+        if (dirty.getAndSet(false)) {
             dumpFile();
         }
+        return this;
+    }
+
+    /**
+     * Write the pending modifications and stop the background writer.
+     */
+    @Override
+    public void close() {
+        flush();
+        synchronized (this) {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    // watcher is stopped anyway
+                }
+                watchService = null;
+            }
+            if (writer != null) {
+                writer.shutdown();
+                writer = null;
+            }
+            if (shutdownHook != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // JVM is already shutting down
+                }
+                shutdownHook = null;
+            }
+        }
+        for (Runnable closeCallback : closeCallbacks) {
+            closeCallback.run();
+        }
+    }
+
+    /**
+     * Register a callback run once the preferences are closed, for example to forget them.
+     *
+     * @return the current {@link FilePreferences} to chain commands.
+     */
+    public FilePreferences addCloseCallback(Runnable closeCallback) {
+        closeCallbacks.add(closeCallback);
+        return this;
+    }
+
+    protected synchronized ScheduledExecutorService getWriter() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "codenvy-preferences-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            shutdownHook = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, "codenvy-preferences-flush");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        return writer;
     }
 
     private boolean disableSaveOnChanges = false;
 
+    /**
+     * Never save the modifications of the preferences. They are no longer recorded, so they are lost if the file is reloaded after a
+     * change made by another process.
+     *
+     * @return the current {@link FilePreferences} to chain commands.
+     */
     public FilePreferences setDisableSaveOnChanges() {
         disableSaveOnChanges = true;
+        rootNode.stopRecordingModifications();
         return this;
     }
 
+    /**
+     * Write of the file prepared while the preferences are locked.
+     */
+    protected interface PendingWrite {
+        /**
+         * Write the prepared content, called with the lock of the file only.
+         */
+        void write() throws IOException;
+    }
+
+    /**
+     * Identifies a version of the file written by any process.
+     */
+    private static class FileVersion {
+        private final FileTime lastModifiedTime;
+        private final long     size;
+        private final Object   fileKey;
+
+        private FileVersion(BasicFileAttributes attributes) {
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            // a new file is renamed on each write, so its key changes even if the time and the size are the same
+            this.fileKey = attributes.fileKey();
+        }
+
+        /**
+         * @return the current version of the given file, null if the file doesn't exist.
+         */
+        private static FileVersion of(Path file) {
+            try {
+                return new FileVersion(Files.readAttributes(file, BasicFileAttributes.class));
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileVersion)) {
+                return false;
+            }
+            FileVersion other = (FileVersion)o;
+            return size == other.size && lastModifiedTime.equals(other.lastModifiedTime)
+                   && (fileKey == null ? other.fileKey == null : fileKey.equals(other.fileKey));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = lastModifiedTime.hashCode();
+            result = 31 * result + (int)(size ^ (size >>> 32));
+            result = 31 * result + (fileKey != null ? fileKey.hashCode() : 0);
+            return result;
+        }
+    }
+
 }
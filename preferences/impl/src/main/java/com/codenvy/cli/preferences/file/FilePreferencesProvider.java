@@ -15,6 +15,9 @@ import com.codenvy.cli.preferences.PreferencesProvider;
 
 import java.io.File;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Default implementation that will provide instances of preferences based on file.
@@ -22,6 +25,11 @@ import java.net.URI;
  */
 public class FilePreferencesProvider implements PreferencesProvider {
 
+    /**
+     * Preferences built by this provider.
+     */
+    private final List<FilePreferences> builtPreferences = new CopyOnWriteArrayList<>();
+
     /**
      * Build and return a new preferences based on the given URI.
      *
@@ -33,6 +41,44 @@ public class FilePreferencesProvider implements PreferencesProvider {
         if (!"file".equals(uri.getScheme())) {
             return null;
         }
-        return new FilePreferences(new File(uri));
+        return register(new FilePreferences(new File(uri)).watch());
+    }
+
+    /**
+     * @return the file whose path is given by the URI, which may use another scheme than file
+     */
+    protected File getFile(URI uri) {
+        if (uri.getPath() == null) {
+            throw new IllegalArgumentException("The URI '" + uri + "' doesn't define the path of the preferences file");
+        }
+        try {
+            return new File(new URI("file", null, uri.getPath(), null));
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid preferences URI '" + uri + "'", e);
+        }
+    }
+
+    /**
+     * Keep track of the given preferences so their pending modifications are written when this provider is closed. Preferences closed
+     * before are forgotten.
+     */
+    protected FilePreferences register(final FilePreferences filePreferences) {
+        builtPreferences.add(filePreferences);
+        return filePreferences.addCloseCallback(new Runnable() {
+            @Override
+            public void run() {
+                builtPreferences.remove(filePreferences);
+            }
+        });
+    }
+
+    /**
+     * Write pending modifications of all the preferences built by this provider.
+     */
+    public void close() {
+        for (FilePreferences filePreferences : builtPreferences) {
+            filePreferences.close();
+        }
+        builtPreferences.clear();
     }
 }
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.file.JsonPreferences.Modification;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Preferences stored in a snapshot file along with a journal of the modifications made since the snapshot has been written. The
+ * journal is stored next to the snapshot, for example {@code preferences.json.journal}.
+ * <p>
+ * Saving the preferences appends the pending modifications to the journal, so the cost of a write depends on the size of the
+ * modifications and not on the size of the preferences. Each record of the journal starts with its length and its CRC-32 checksum:
+ * when the preferences are read, the journal is replayed on the snapshot up to the first incomplete or corrupted record, which is
+ * dropped by the next write.
+ * </p>
+ * <p>
+ * Once the journal is bigger than the snapshot, the next save writes a new snapshot and empties the journal. Saves are done by the
+ * background writer, so the compaction doesn't slow down the modifications. A modification replayed twice gives the same content, so
+ * the journal is still valid if the process stops after the snapshot has been written but before the journal has been emptied.
+ * </p>
+ */
+public class JournalPreferences extends FilePreferences {
+
+    /**
+     * Minimum size in bytes of the journal before it is compacted.
+     */
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    /**
+     * Size of the header of a record: length and checksum.
+     */
+    private static final int HEADER_SIZE = 4 + 8;
+
+    /**
+     * Size of the valid records of the journal, as found by the last read or write. Guarded by the monitor of the file. It is not
+     * initialized in its declaration as it is set while the superclass constructor reads the file.
+     */
+    private long journalSize;
+
+    public JournalPreferences(File preferencesFile) {
+        this(preferencesFile, DEFAULT_WRITE_DELAY);
+    }
+
+    public JournalPreferences(File preferencesFile, long writeDelay) {
+        this(preferencesFile, writeDelay, PreferencesFormat.JSON);
+    }
+
+    /**
+     * Create a {@link JournalPreferences} linked to the specified snapshot {@link File}.
+     *
+     * @param preferencesFile the snapshot of the preferences, which may be an existing preferences file.
+     * @param writeDelay the delay in milliseconds during which modifications are gathered before writing the journal, 0 to write the
+     * journal on each modification.
+     * @param format the encoding of the snapshot, records of the journal are always encoded in JSON.
+     */
+    public JournalPreferences(File preferencesFile, long writeDelay, PreferencesFormat format) {
+        super(preferencesFile, writeDelay, format);
+    }
+
+    /**
+     * @return the file containing the modifications made since the snapshot has been written
+     */
+    protected Path getJournalFile() {
+        Path target = getPreferencesFile().toPath().toAbsolutePath();
+        return target.resolveSibling(target.getFileName().toString() + ".journal");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every write changes the journal, even a compaction which empties it.
+     * </p>
+     */
+    @Override
+    protected Path getVersionedFile() {
+        return getJournalFile();
+    }
+
+    @Override
+    protected FilePreferences loadFile() {
+        try {
+            Files.createFile(getJournalFile());
+        } catch (FileAlreadyExistsException e) {
+            // journal of a previous run
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return super.loadFile();
+    }
+
+    /**
+     * Read the snapshot and replay the valid records of the journal.
+     *
+     * @return the preferences stored in the snapshot and the journal.
+     */
+    @Override
+    protected JsonPreferences readFile() throws IOException {
+        JsonPreferences content = super.readFile();
+        byte[] journal;
+        try {
+            journal = Files.readAllBytes(getJournalFile());
+        } catch (NoSuchFileException e) {
+            journal = new byte[0];
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(journal);
+        int validSize = 0;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length < 0 || length > buffer.remaining()) {
+                // incomplete record
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(journal, buffer.position(), length);
+            if (crc.getValue() != checksum) {
+                // corrupted record
+                break;
+            }
+            readRecord(Arrays.copyOfRange(journal, buffer.position(), buffer.position() + length)).apply(content);
+            buffer.position(buffer.position() + length);
+            validSize = buffer.position();
+        }
+        journalSize = validSize;
+        return content;
+    }
+
+    /**
+     * Prepare the append of the pending modifications to the journal, or the write of a new snapshot if the journal has become bigger
+     * than the snapshot.
+     */
+    @Override
+    protected PendingWrite prepareWrite() throws IOException {
+        if (journalSize >= Math.max(MIN_COMPACTION_SIZE, getPreferencesFile().length())) {
+            return compact();
+        }
+
+        List<Modification> modifications = getRootNode().getModifications();
+        if (modifications.isEmpty()) {
+            return new PendingWrite() {
+                @Override
+                public void write() {
+                    // nothing to append
+                }
+            };
+        }
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        for (Modification modification : modifications) {
+            byte[] record = writeRecord(modification);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            out.writeInt(record.length);
+            out.writeLong(crc.getValue());
+            out.write(record);
+        }
+
+        return new PendingWrite() {
+            @Override
+            public void write() throws IOException {
+                try (FileChannel channel = FileChannel.open(getJournalFile(), CREATE, WRITE)) {
+                    // drop an incomplete record left by an interrupted write
+                    channel.truncate(journalSize);
+                    channel.position(journalSize);
+                    ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+                journalSize += records.size();
+            }
+        };
+    }
+
+    /**
+     * Prepare the write of the whole preferences in a new snapshot, which then empties the journal.
+     */
+    protected PendingWrite compact() throws IOException {
+        final PendingWrite snapshotWrite = super.prepareWrite();
+        return new PendingWrite() {
+            @Override
+            public void write() throws IOException {
+                snapshotWrite.write();
+                try (FileChannel channel = FileChannel.open(getJournalFile(), CREATE, WRITE)) {
+                    channel.truncate(0);
+                    channel.force(false);
+                }
+                journalSize = 0;
+            }
+        };
+    }
+
+    private static byte[] writeRecord(Modification modification) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", modification.getNodePath());
+        record.put("key", modification.getKey());
+        record.put("type", modification.getType().name());
+        if (modification.getValue() != null) {
+            record.put("value", modification.getValue());
+        }
+        return PreferencesMapper.toBytes(record);
+    }
+
+    private static Modification readRecord(byte[] content) throws IOException {
+        JsonNode record = PreferencesMapper.readTree(content);
+        List<String> nodePath = new ArrayList<>();
+        for (JsonNode nodeKey : record.get("path")) {
+            nodePath.add(nodeKey.asText());
+        }
+        JsonNode value = record.get("value");
+        return new Modification(nodePath, record.get("key").asText(), LifecycleEvent.valueOf(record.get("type").asText()),
+                                value == null || value.isNull() ? null : PreferencesMapper.convert(value, Object.class));
+    }
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+
+import java.net.URI;
+
+/**
+ * Provides preferences saved by appending the modifications to a journal, see {@link JournalPreferences}. The URI of the snapshot uses
+ * the journal scheme, for example {@code journal:///home/user/.codenvy/preferences.json}: an existing preferences file can be used as
+ * the initial snapshot.
+ */
+public class JournalPreferencesProvider extends FilePreferencesProvider {
+
+    /**
+     * Scheme of the URIs handled by this provider.
+     */
+    public static final String SCHEME = "journal";
+
+    /**
+     * Build and return a new preferences based on the given URI.
+     *
+     * @param uri
+     *         the URI that indicates the URI wanted
+     * @return the newly built instance
+     */
+    @Override
+    public Preferences buildPreferences(URI uri) {
+        if (!SCHEME.equals(uri.getScheme())) {
+            return null;
+        }
+        return register(new JournalPreferences(getFile(uri)).watch());
+    }
+}
@@ -11,45 +11,60 @@
 package com.codenvy.cli.preferences.file;
 
 import com.codenvy.cli.preferences.Preferences;
-import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.codenvy.cli.preferences.PreferencesListener;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-import com.fasterxml.jackson.databind.type.MapLikeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import static com.codenvy.cli.preferences.file.LifecycleEvent.BATCH;
 import static com.codenvy.cli.preferences.file.LifecycleEvent.CREATE;
 import static com.codenvy.cli.preferences.file.LifecycleEvent.DELETE;
 import static com.codenvy.cli.preferences.file.LifecycleEvent.MERGE;
 
 /**
  * Real implementation of {@link Preferences} based on Jackson to be able to map and unmap stored objects to a preferences tree.
+ * <p>
+ * When preferences are read, nested objects are kept as parsed by Jackson: they are only converted into a node or a typed value when
+ * they are accessed, so the parts of the tree that are not used are never converted.
+ * </p>
+ * <p>
+ * Stored values are never modified once they are in the tree: a merge builds a new value which replaces the previous one with an
+ * atomic compare-and-set, so a reader always sees a complete value. A merge into a nested node replaces the entries of the node one
+ * by one. Readers and writers of single entries share the read lock of the tree, so they don't block each other, while batches and
+ * the reload or the save of the whole tree take the write lock: readers never see a partially applied batch or reload. Previous values
+ * of the entries modified by a batch are remembered, so the tree is restored if the batch fails.
+ * </p>
+ * <p>
+ * Values returned by {@link #get(String, Class)} are new instances, which can be modified by the caller without changing the tree or
+ * the values returned to other callers.
+ * </p>
  *
  * @author Stéphane Daviet
  */
 public class JsonPreferences implements Preferences, LifecycleCallback {
 
-    private List<LifecycleCallback> callbackList;
-
-    private final ConcurrentMap<String, Object> innerPreferences;
-
-    private final ObjectMapper mapper;
-
-    private final MapLikeType mapType;
-
-    private final Collection<Class<?>> simpleTypes = Arrays.asList(new Class<?>[]{
+    private static final Set<Class<?>> SIMPLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(new Class<?>[]{
             Byte.class,
             Character.class,
             Short.class,
@@ -59,26 +74,75 @@ public class JsonPreferences implements Preferences, LifecycleCallback {
             Float.class,
             Double.class,
             Void.class
-    });
+    })));
+
+    /**
+     * Maximum number of attempts of a merge. An attempt fails only when another thread has replaced the same entry during the merge,
+     * so this limit is only reached if the entry is continuously replaced by other threads.
+     */
+    private static final int MAX_MERGE_ATTEMPTS = 1000;
+
+    /**
+     * Types that need to be mapped and unmapped, computed once per class.
+     */
+    private static final ClassValue<Boolean> MAPPED_TYPES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> clazz) {
+            return !(SIMPLE_TYPES.contains(clazz)
+                     || clazz.isPrimitive()
+                     || clazz.isArray()
+                     || Enum.class.isAssignableFrom(clazz)
+                     || Collection.class.isAssignableFrom(clazz));
+        }
+    };
+
+    private final List<LifecycleCallback> callbackList;
+
+    private final List<PreferencesListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentMap<String, Object> innerPreferences;
+
+    /**
+     * Entries already serialized by {@link #get(String, Class)}, indexed by key. Only the serialization is cached: typed values are
+     * bound again from it on each call so every caller gets its own instance.
+     */
+    private final ConcurrentMap<String, ParsedValue> parsedValues;
+
+    /**
+     * State shared by all the nodes of the tree.
+     */
+    private final Tree tree;
+
+    /**
+     * Keys leading from the root node to this node.
+     */
+    private final List<String> nodePath;
 
     protected JsonPreferences() {
         this(new HashMap<String, Object>());
     }
 
-    @JsonCreator
     protected JsonPreferences(Map<String, Object> innerPreferences) {
-        this.callbackList = new ArrayList<>();
-        this.innerPreferences = new ConcurrentHashMap<String, Object>(innerPreferences);
+        this(innerPreferences, new Tree(), Collections.<String>emptyList());
+    }
 
-        this.mapper = new ObjectMapper();
-        this.mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-        this.mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
-        this.mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
-        this.mapper.setVisibility(PropertyAccessor.GETTER, Visibility.PUBLIC_ONLY);
-        this.mapper.setVisibility(PropertyAccessor.IS_GETTER, Visibility.PUBLIC_ONLY);
+    /**
+     * Build a root node from a parsed object, its nested objects are converted on first access.
+     */
+    @JsonCreator
+    protected JsonPreferences(ObjectNode content) {
+        this(PreferencesMapper.fields(content));
+    }
 
-        this.mapType = this.mapper.getTypeFactory()
-                                  .constructMapType(ConcurrentMap.class, String.class, Object.class);
+    /**
+     * Build a node of an existing tree.
+     */
+    protected JsonPreferences(Map<String, Object> innerPreferences, Tree tree, List<String> nodePath) {
+        this.tree = tree;
+        this.nodePath = nodePath;
+        this.callbackList = new CopyOnWriteArrayList<>();
+        this.innerPreferences = new ConcurrentHashMap<String, Object>(innerPreferences);
+        this.parsedValues = new ConcurrentHashMap<>();
     }
 
     @JsonValue
@@ -87,51 +151,154 @@ public class JsonPreferences implements Preferences, LifecycleCallback {
     }
 
     protected Object get(String key) {
-        return innerPreferences.get(key);
+        beforeRead();
+        tree.lock.readLock().lock();
+        try {
+            return innerPreferences.get(key);
+        } finally {
+            tree.lock.readLock().unlock();
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The serialized form of the entry is cached until the entry is replaced, and a new instance is read from it on each call: the
+     * typed value itself is not cached, as callers are free to modify it.
+     * </p>
+     */
     @SuppressWarnings("unchecked")
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        if (!shouldMapUnmap(clazz)) {
-            return (T)innerPreferences.get(key);
+        beforeRead();
+        tree.lock.readLock().lock();
+        try {
+            if (!shouldMapUnmap(clazz)) {
+                return (T)innerPreferences.get(key);
+            }
+
+            // version is read before the entry, a node modified in the meantime is serialized again by the next call
+            long version = tree.version.get();
+            Object source = innerPreferences.get(key);
+            if (source == null) {
+                return null;
+            }
+            ParsedValue parsedValue = parsedValues.get(key);
+            if (parsedValue == null || !parsedValue.isValid(source, version)) {
+                parsedValue = new ParsedValue(source, version, PreferencesMapper.buffer(source));
+                parsedValues.put(key, parsedValue);
+            }
+            return PreferencesMapper.read(parsedValue.buffer, clazz);
+        } finally {
+            tree.lock.readLock().unlock();
         }
-        return mapper.convertValue(innerPreferences.get(key), clazz);
     }
 
     @Override
     public void put(String key, Object value) {
-        put(key, value, true);
+        tree.lock.readLock().lock();
+        try {
+            put(key, value, true);
+        } finally {
+            tree.lock.readLock().unlock();
+        }
+        // listeners may save the tree, which requires the write lock
         notify(CREATE);
     }
 
     @Override
     public void merge(String key, Object value) {
-        put(key, value, false);
+        tree.lock.readLock().lock();
+        try {
+            put(key, value, false);
+        } finally {
+            tree.lock.readLock().unlock();
+        }
         notify(MERGE);
     }
 
+    /**
+     * Store the given value. A merged value is a copy of the previous one updated with the given value, which replaces the previous one
+     * only if it has not been replaced in the meantime, else the merge is done again. Must be called with the read or the write lock.
+     */
     protected void put(String key, Object value, boolean overwrite) {
+        Object newValue = shouldMapUnmap(value.getClass()) ? PreferencesMapper.toMap(value) : value;
+        Queue<Modification> journal = tree.journal;
+        if (journal != null) {
+            journal.add(new Modification(nodePath, key, overwrite ? CREATE : MERGE, newValue));
+        }
+        beforeModification(key);
+        if (overwrite) {
+            innerPreferences.put(key, newValue);
+        } else {
+            int attempts = 1;
+            while (!mergeEntry(key, value, newValue)) {
+                // entry has been replaced by another thread during the merge, merge again into its new value
+                if (attempts++ >= MAX_MERGE_ATTEMPTS) {
+                    throw new IllegalStateException("Unable to merge the preference " + key + " which is concurrently modified");
+                }
+            }
+        }
+        modified(key);
+    }
+
+    /**
+     * Try to merge the given value into the current entry.
+     *
+     * @return false if the entry has been replaced by another thread during the merge
+     */
+    private boolean mergeEntry(String key, Object value, Object newValue) {
         Object previousValue = innerPreferences.get(key);
-        if (previousValue != null && !overwrite) {
-            ObjectReader updater = mapper.readerForUpdating(previousValue);
-            try {
-                updater.readValue(this.mapper.valueToTree(value));
-            } catch (IllegalArgumentException | IOException e) {
-                throw new IllegalStateException("Unable to put the value", e);
+        if (previousValue == null) {
+            return innerPreferences.putIfAbsent(key, newValue) == null;
+        }
+        if (previousValue instanceof JsonPreferences) {
+            if (!(newValue instanceof Map)) {
+                throw new IllegalStateException("Unable to merge the value " + value + " into the node " + key);
             }
-        } else {
-            if (!shouldMapUnmap(value.getClass())) {
-                innerPreferences.put(key, value);
+            // references to the node remain valid, its entries are replaced one by one
+            ((JsonPreferences)previousValue).mergeContent(getContent(newValue));
+            return true;
+        }
+        try {
+            return innerPreferences.replace(key, previousValue, PreferencesMapper.merge(previousValue, value));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalStateException("Unable to put the value", e);
+        }
+    }
+
+    /**
+     * Replace the entries of this node with the given ones, the nested nodes are merged in the same way.
+     */
+    private void mergeContent(Map<String, Object> content) {
+        for (Map.Entry<String, Object> entry : content.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            Object current = innerPreferences.get(key);
+            if (current instanceof JsonPreferences && value instanceof Map) {
+                ((JsonPreferences)current).mergeContent(getContent(value));
             } else {
-                innerPreferences.put(key, this.mapper.convertValue(value, mapType));
+                beforeModification(key);
+                innerPreferences.put(key, value);
             }
+            modified(key);
         }
     }
 
     @Override
     public void delete(String key) {
-        innerPreferences.remove(key);
+        tree.lock.readLock().lock();
+        try {
+            Queue<Modification> journal = tree.journal;
+            if (journal != null) {
+                journal.add(new Modification(nodePath, key, DELETE, null));
+            }
+            beforeModification(key);
+            innerPreferences.remove(key);
+            modified(key);
+        } finally {
+            tree.lock.readLock().unlock();
+        }
         notify(DELETE);
     }
 
@@ -147,38 +314,323 @@ public class JsonPreferences implements Preferences, LifecycleCallback {
 
     @Override
     public boolean pathExists(String key) {
-        return innerPreferences.containsKey(key);
+        beforeRead();
+        tree.lock.readLock().lock();
+        try {
+            return innerPreferences.containsKey(key);
+        } finally {
+            tree.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The whole tree is locked during the batch and a single {@link LifecycleEvent#BATCH} event is sent to the listeners once the
+     * outermost batch completes, if the tree has been modified. If the batch fails, the entries it has modified are restored before the
+     * lock is released, and nothing is sent if the outermost batch fails.
+     * </p>
+     */
+    @Override
+    public void batch(PreferencesBatch batch) {
+        tree.lock.writeLock().lock();
+        try {
+            if (tree.batchDepth++ == 0) {
+                tree.undoLog = new ArrayList<>();
+            }
+            int undoMark = tree.undoLog.size();
+            int journalMark = tree.journal == null ? 0 : tree.journal.size();
+            boolean completed = false;
+            try {
+                batch.apply(this);
+                completed = true;
+            } finally {
+                if (!completed) {
+                    rollback(undoMark, journalMark);
+                }
+                tree.batchDepth--;
+                if (tree.batchDepth == 0) {
+                    tree.undoLog = null;
+                    if (tree.modified && completed) {
+                        sendNotification(BATCH);
+                    }
+                    tree.modified = false;
+                }
+            }
+        } finally {
+            tree.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remember the current value of the given entry before it is modified by a batch. Must be called with the read or the write lock.
+     */
+    private void beforeModification(String key) {
+        // only the thread running the batch can modify the tree while there is an undo log
+        List<Undo> undoLog = tree.undoLog;
+        if (undoLog != null) {
+            undoLog.add(new Undo(this, key, innerPreferences.get(key)));
+        }
+    }
+
+    /**
+     * Restore the entries modified since the given position of the undo log, and forget the modifications recorded since the given
+     * position of the journal. Must be called with the write lock.
+     */
+    private void rollback(int undoMark, int journalMark) {
+        List<Undo> undoLog = tree.undoLog;
+        for (int i = undoLog.size() - 1; i >= undoMark; i--) {
+            undoLog.remove(i).restore();
+        }
+        Queue<Modification> journal = tree.journal;
+        if (journal != null && journal.size() > journalMark) {
+            Queue<Modification> keptModifications = new ConcurrentLinkedQueue<>();
+            Iterator<Modification> modifications = journal.iterator();
+            for (int i = 0; i < journalMark; i++) {
+                keptModifications.add(modifications.next());
+            }
+            tree.journal = keptModifications;
+        }
+    }
+
+    /**
+     * @return the lock shared by all the nodes of the tree, its write lock gives an exclusive access to the whole tree
+     */
+    protected ReentrantReadWriteLock getLock() {
+        return tree.lock;
     }
 
     protected Preferences path(String key, boolean create) {
-        Object value = innerPreferences.get(key);
-        if (value == null) {
-            if (!create) {
-                return null;
+        beforeRead();
+        tree.lock.readLock().lock();
+        try {
+            while (true) {
+                Object value = innerPreferences.get(key);
+                if (value == null) {
+                    if (!create) {
+                        return null;
+                    }
+                    JsonPreferences node = newNode(key, new HashMap<String, Object>());
+                    beforeModification(key);
+                    if (innerPreferences.putIfAbsent(key, node) == null) {
+                        modified(key);
+                        return node;
+                    }
+                } else if (value instanceof JsonPreferences) {
+                    return (JsonPreferences)value;
+                } else if (value instanceof Map || value instanceof ObjectNode) {
+                    JsonPreferences node = newNode(key, getContent(value));
+                    if (innerPreferences.replace(key, value, node)) {
+                        return node;
+                    }
+                } else {
+                    return this;
+                }
+                // entry has been replaced by another thread
             }
-            value = new JsonPreferences();
-            ((JsonPreferences) value).addCallback(this);
-            innerPreferences.put(key, value);
-            return (JsonPreferences)value;
-        } else if (value instanceof JsonPreferences) {
-            return (JsonPreferences)value;
-        } else if (value instanceof Map) {
-            @SuppressWarnings("unchecked")
-            JsonPreferences deepInnerPreferences = new JsonPreferences((Map<String, Object>)value);
-            deepInnerPreferences.addCallback(this);
-            innerPreferences.put(key, deepInnerPreferences);
-            return deepInnerPreferences;
-        } else {
-            return this;
+        } finally {
+            tree.lock.readLock().unlock();
+        }
+    }
+
+    private JsonPreferences newNode(String key, Map<String, Object> content) {
+        JsonPreferences node = new JsonPreferences(content, tree, childPath(key));
+        node.addCallback(this);
+        return node;
+    }
+
+    /**
+     * @return the content of a nested node, which is either a map or a parsed object
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getContent(Object value) {
+        if (value instanceof ObjectNode) {
+            return PreferencesMapper.fields((ObjectNode)value);
+        }
+        return (Map<String, Object>)value;
+    }
+
+    private List<String> childPath(String key) {
+        List<String> childPath = new ArrayList<>(nodePath);
+        childPath.add(key);
+        return Collections.unmodifiableList(childPath);
+    }
+
+    /**
+     * Start recording the modifications of the tree, so they can be applied again on a more recent version of the preferences.
+     */
+    protected void recordModifications() {
+        tree.lock.writeLock().lock();
+        try {
+            tree.journal = new ConcurrentLinkedQueue<>();
+        } finally {
+            tree.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the recorded modifications that have not yet been saved, in the order they have been made
+     */
+    List<Modification> getModifications() {
+        Queue<Modification> journal = tree.journal;
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(journal);
+    }
+
+    /**
+     * Stop recording the modifications, for example as they are never saved.
+     */
+    protected void stopRecordingModifications() {
+        tree.lock.writeLock().lock();
+        try {
+            tree.journal = null;
+        } finally {
+            tree.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forget the oldest recorded modifications, once they have been saved. Modifications recorded since they have been read are kept.
+     *
+     * @param count the number of saved modifications
+     */
+    protected void removeModifications(int count) {
+        Queue<Modification> journal = tree.journal;
+        if (journal == null) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            journal.poll();
         }
     }
 
+    /**
+     * Register a callback run before any node of the tree is read, without any lock of the tree held by the current thread.
+     */
+    protected void setReadCallback(Runnable readCallback) {
+        tree.readCallback = readCallback;
+    }
+
+    /**
+     * Run the read callback of the tree, unless the tree is locked by the current thread as the callback may need to lock it.
+     */
+    private void beforeRead() {
+        Runnable readCallback = tree.readCallback;
+        if (readCallback != null && tree.lock.getReadHoldCount() == 0 && !tree.lock.isWriteLockedByCurrentThread()) {
+            readCallback.run();
+        }
+    }
+
+    /**
+     * Replace the content of this tree with the given one, on which the recorded modifications are applied again. Existing nodes are
+     * updated in place so references to them remain valid, and only the entries that have changed are replaced so the values converted
+     * from the other ones are kept. Listeners of the changed entries are notified by {@link #fireChanges()}.
+     *
+     * @param latest a more recent version of the preferences
+     */
+    protected void reload(JsonPreferences latest) {
+        tree.lock.writeLock().lock();
+        try {
+            if (tree.journal != null) {
+                for (Modification modification : tree.journal) {
+                    modification.apply(latest);
+                }
+            }
+            replaceContent(latest.getInnerPreferences());
+        } finally {
+            tree.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the entries that differ from the given content.
+     *
+     * @return true if an entry of this node or of a nested node has changed
+     */
+    private boolean replaceContent(Map<String, Object> content) {
+        boolean changed = false;
+        Iterator<String> keys = innerPreferences.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!content.containsKey(key)) {
+                keys.remove();
+                changed(key);
+                changed = true;
+            }
+        }
+        for (Map.Entry<String, Object> entry : content.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof JsonPreferences) {
+                value = ((JsonPreferences)value).getInnerPreferences();
+            }
+            Object current = innerPreferences.get(key);
+            if (current instanceof JsonPreferences && (value instanceof Map || value instanceof ObjectNode)) {
+                if (((JsonPreferences)current).replaceContent(getContent(value))) {
+                    changed(key);
+                    changed = true;
+                }
+            } else if (current == null || !PreferencesMapper.sameContent(current, value)) {
+                innerPreferences.put(key, value);
+                changed(key);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Forget the serialized form of the given entry and queue the notification of the listeners.
+     */
+    private void changed(String key) {
+        parsedValues.remove(key);
+        if (!listeners.isEmpty()) {
+            tree.changes.add(new Change(this, key));
+        }
+    }
+
+    /**
+     * Notify the listeners of the entries changed by the last reloads. Listeners are not called while the tree is locked by the
+     * current thread, the changes are then kept until this method is called again without the lock.
+     */
+    protected void fireChanges() {
+        if (tree.lock.isWriteLockedByCurrentThread()) {
+            return;
+        }
+        Change change;
+        while ((change = tree.changes.poll()) != null) {
+            for (PreferencesListener listener : change.node.listeners) {
+                try {
+                    listener.changed(change.node, change.key);
+                } catch (RuntimeException e) {
+                    System.err.println("Unable to notify the change of the preference " + change.key + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addListener(PreferencesListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(PreferencesListener listener) {
+        listeners.remove(listener);
+    }
+
     private boolean shouldMapUnmap(Class< ? > clazz) {
-        return !(simpleTypes.contains(clazz)
-                 || clazz.isPrimitive()
-                 || clazz.isArray()
-                 || Enum.class.isAssignableFrom(clazz)
-                 || Collection.class.isAssignableFrom(clazz));
+        return MAPPED_TYPES.get(clazz);
+    }
+
+    /**
+     * Invalidate the serialized form of the given entry, and of the nodes containing it, once the entry has been modified.
+     */
+    private void modified(String key) {
+        tree.version.incrementAndGet();
+        parsedValues.remove(key);
     }
 
 
@@ -194,7 +646,181 @@ public class JsonPreferences implements Preferences, LifecycleCallback {
 
     @Override
     public void notify(LifecycleEvent lifecycleEvent) {
+        // events of a batch are replaced by a single event at the end of the batch
+        if (tree.lock.isWriteLockedByCurrentThread() && tree.batchDepth > 0) {
+            tree.modified = true;
+            return;
+        }
         // notify listeners
         sendNotification(lifecycleEvent);
     }
+
+    /**
+     * State shared by all the nodes of a preferences tree.
+     */
+    protected static class Tree {
+        /**
+         * Lock of the whole tree. Readers and modifications of single entries share the read lock as the entries are replaced
+         * atomically, while batches, reloads and saves hold the write lock to get a consistent view of the tree.
+         */
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Number of nested batches, guarded by the write lock.
+         */
+        private int batchDepth;
+
+        /**
+         * Tree has been modified during the current batch, guarded by the write lock.
+         */
+        private boolean modified;
+
+        /**
+         * Previous values of the entries modified by the current batch, in the order they have been modified, null if there is no batch
+         * in progress. Guarded by the write lock.
+         */
+        private List<Undo> undoLog;
+
+        /**
+         * Incremented on each modification of the tree.
+         */
+        private final AtomicLong version = new AtomicLong();
+
+        /**
+         * Modifications that have not yet been saved, null if they are not recorded. Replaced with the write lock.
+         */
+        private volatile Queue<Modification> journal;
+
+        /**
+         * Callback run before a node is read, null if there is none.
+         */
+        private volatile Runnable readCallback;
+
+        /**
+         * Changes made by other processes whose listeners have not yet been notified.
+         */
+        private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * An entry changed by another process.
+     */
+    private static class Change {
+        private final JsonPreferences node;
+        private final String          key;
+
+        private Change(JsonPreferences node, String key) {
+            this.node = node;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The previous value of an entry modified by a batch.
+     */
+    private static class Undo {
+        private final JsonPreferences node;
+        private final String          key;
+        private final Object          previousValue;
+
+        private Undo(JsonPreferences node, String key, Object previousValue) {
+            this.node = node;
+            this.key = key;
+            this.previousValue = previousValue;
+        }
+
+        /**
+         * Put back the previous value of the entry, stored values are never modified so it is still the same.
+         */
+        private void restore() {
+            if (previousValue == null) {
+                node.innerPreferences.remove(key);
+            } else {
+                node.innerPreferences.put(key, previousValue);
+            }
+            node.modified(key);
+        }
+    }
+
+    /**
+     * A modification of a node of the tree.
+     */
+    static class Modification {
+        private final List<String>   nodePath;
+        private final String         key;
+        private final LifecycleEvent type;
+        private final Object         value;
+
+        Modification(List<String> nodePath, String key, LifecycleEvent type, Object value) {
+            this.nodePath = nodePath;
+            this.key = key;
+            this.type = type;
+            this.value = value;
+        }
+
+        List<String> getNodePath() {
+            return nodePath;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        LifecycleEvent getType() {
+            return type;
+        }
+
+        /**
+         * @return the stored value, null for a deletion
+         */
+        Object getValue() {
+            return value;
+        }
+
+        /**
+         * Apply again this modification on the given tree.
+         */
+        void apply(Preferences root) {
+            Preferences node = root;
+            for (String nodeKey : nodePath) {
+                node = node.path(nodeKey);
+            }
+            switch (type) {
+                case CREATE:
+                    node.put(key, value);
+                    break;
+                case MERGE:
+                    node.merge(key, value);
+                    break;
+                case DELETE:
+                    node.delete(key);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported modification " + type);
+            }
+        }
+    }
+
+    /**
+     * A serialized entry along with the entry and the version of the tree it has been computed from.
+     */
+    private static class ParsedValue {
+        private final Object      source;
+        private final long        version;
+        private final TokenBuffer buffer;
+
+        private ParsedValue(Object source, long version, TokenBuffer buffer) {
+            this.source = source;
+            this.version = version;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Stored values are never modified, so the serialized entry remains valid as long as the entry is not replaced. The entries of
+         * nodes are replaced in place, so nodes are checked with the version of the tree.
+         */
+        private boolean isValid(Object currentSource, long currentVersion) {
+            return source == currentSource && (!(source instanceof JsonPreferences) || version == currentVersion);
+        }
+    }
 }
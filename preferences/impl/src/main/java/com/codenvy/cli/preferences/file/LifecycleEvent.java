@@ -18,5 +18,6 @@ public enum LifecycleEvent {
 
     CREATE,
     MERGE,
-    DELETE
+    DELETE,
+    BATCH
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides preferences that are only kept in memory, nothing is read from or written to the disk.
+ * It is intended for ephemeral runs like continuous integration builds, tests or benchmarks.
+ * <p>
+ * The URI uses the mem scheme. All the preferences built for the same URI share the same content while this provider is active:
+ * <ul>
+ * <li>{@code mem:cli} gives empty preferences named cli</li>
+ * <li>{@code mem:/com/codenvy/cli/command/builtin/default-preferences.json} gives preferences initialized with the content of the
+ * given JSON resource, searched with the context class loader and then with the class loader of this provider</li>
+ * </ul>
+ * </p>
+ */
+public class MemoryPreferencesProvider implements PreferencesProvider {
+
+    /**
+     * Scheme of the URIs handled by this provider.
+     */
+    public static final String SCHEME = "mem";
+
+    /**
+     * Preferences built by this provider, indexed by their URI.
+     */
+    private final ConcurrentMap<URI, JsonPreferences> builtPreferences = new ConcurrentHashMap<>();
+
+    /**
+     * Build and return a new preferences based on the given URI.
+     *
+     * @param uri
+     *         the URI that indicates the URI wanted
+     * @return the preferences already built for this URI or a newly built instance
+     */
+    public Preferences buildPreferences(URI uri) {
+        if (!SCHEME.equals(uri.getScheme())) {
+            return null;
+        }
+        JsonPreferences preferences = builtPreferences.get(uri);
+        if (preferences == null) {
+            JsonPreferences newPreferences = load(uri.getSchemeSpecificPart());
+            preferences = builtPreferences.putIfAbsent(uri, newPreferences);
+            if (preferences == null) {
+                preferences = newPreferences;
+            }
+        }
+        return preferences;
+    }
+
+    /**
+     * Build the content of the preferences, from the given JSON resource if the name is an absolute resource path.
+     */
+    protected JsonPreferences load(String name) {
+        if (name == null || !name.startsWith("/")) {
+            return new JsonPreferences();
+        }
+        try (InputStream is = getResource(name)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Unable to find the preferences resource " + name);
+            }
+            return PreferencesFormat.JSON.reader().readValue(is);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the preferences resource " + name, e);
+        }
+    }
+
+    protected InputStream getResource(String name) {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            InputStream is = contextClassLoader.getResourceAsStream(name.substring(1));
+            if (is != null) {
+                return is;
+            }
+        }
+        return MemoryPreferencesProvider.class.getResourceAsStream(name);
+    }
+
+    /**
+     * Forget all the preferences built by this provider.
+     */
+    public void close() {
+        builtPreferences.clear();
+    }
+}
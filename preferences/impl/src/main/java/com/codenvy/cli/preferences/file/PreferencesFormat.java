@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Encoding of a preferences file.
+ */
+public enum PreferencesFormat {
+
+    /**
+     * Indented JSON, which can be read and edited by users.
+     */
+    JSON {
+        @Override
+        ObjectReader reader() {
+            return PreferencesMapper.reader(JsonPreferences.class);
+        }
+
+        @Override
+        ObjectWriter writer() {
+            return PreferencesMapper.fileWriter();
+        }
+    },
+
+    /**
+     * Smile, a binary encoding of JSON which is more compact and faster to parse.
+     */
+    SMILE {
+        @Override
+        ObjectReader reader() {
+            return PreferencesMapper.smileReader();
+        }
+
+        @Override
+        ObjectWriter writer() {
+            return PreferencesMapper.smileWriter();
+        }
+    };
+
+    /**
+     * @return the reader of the preferences tree stored in this format
+     */
+    abstract ObjectReader reader();
+
+    /**
+     * @return the writer of the preferences tree in this format
+     */
+    abstract ObjectWriter writer();
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.type.MapLikeType;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Jackson configuration shared by all the preferences. The mapper is configured once and is never modified afterwards, so it can be
+ * used concurrently and keeps its serializers and deserializers cached for all the nodes. Readers and writers are immutable and cached
+ * by type.
+ */
+final class PreferencesMapper {
+
+    private static final ObjectMapper MAPPER = createMapper(new ObjectMapper());
+
+    /**
+     * Same configuration with the binary Smile encoding.
+     */
+    private static final ObjectMapper SMILE_MAPPER = createMapper(new ObjectMapper(new SmileFactory()));
+
+    /**
+     * Type used to store mapped objects in the preferences tree.
+     */
+    private static final MapLikeType MAP_TYPE = MAPPER.getTypeFactory().constructMapType(ConcurrentMap.class, String.class, Object.class);
+
+    private static final ClassValue<ObjectReader> READERS = new ClassValue<ObjectReader>() {
+        @Override
+        protected ObjectReader computeValue(Class<?> clazz) {
+            return MAPPER.reader(clazz);
+        }
+    };
+
+    private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<ObjectWriter>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> clazz) {
+            return MAPPER.writerWithType(clazz);
+        }
+    };
+
+    /**
+     * Writer used to store the preferences in a file.
+     */
+    private static final ObjectWriter FILE_WRITER = MAPPER.writer().with(SerializationFeature.INDENT_OUTPUT);
+
+    private static final ObjectReader SMILE_READER = SMILE_MAPPER.reader(JsonPreferences.class);
+
+    private static final ObjectWriter SMILE_WRITER = SMILE_MAPPER.writer();
+
+    private PreferencesMapper() {
+    }
+
+    private static ObjectMapper createMapper(ObjectMapper mapper) {
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        mapper.setVisibility(PropertyAccessor.GETTER, Visibility.PUBLIC_ONLY);
+        mapper.setVisibility(PropertyAccessor.IS_GETTER, Visibility.PUBLIC_ONLY);
+        return mapper;
+    }
+
+    /**
+     * @return the cached reader of the given type
+     */
+    static ObjectReader reader(Class<?> clazz) {
+        return READERS.get(clazz);
+    }
+
+    /**
+     * @return the cached writer of the given type
+     */
+    static ObjectWriter writer(Class<?> clazz) {
+        return WRITERS.get(clazz);
+    }
+
+    /**
+     * @return the writer producing the indented content of the preferences file
+     */
+    static ObjectWriter fileWriter() {
+        return FILE_WRITER;
+    }
+
+    /**
+     * @return the reader of the preferences tree stored with the Smile encoding
+     */
+    static ObjectReader smileReader() {
+        return SMILE_READER;
+    }
+
+    /**
+     * @return the writer of the preferences tree with the Smile encoding
+     */
+    static ObjectWriter smileWriter() {
+        return SMILE_WRITER;
+    }
+
+    /**
+     * @return the compact JSON form of the given value
+     */
+    static byte[] toBytes(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsBytes(value);
+    }
+
+    /**
+     * @return the parsed JSON content
+     */
+    static JsonNode readTree(byte[] content) throws IOException {
+        return MAPPER.readTree(content);
+    }
+
+    /**
+     * Convert the given value, which is usually a map or a parsed object of the preferences tree, into the given type.
+     */
+    static <T> T convert(Object value, Class<T> clazz) {
+        if (value instanceof JsonNode) {
+            try {
+                return MAPPER.treeToValue((JsonNode)value, clazz);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        return MAPPER.convertValue(value, clazz);
+    }
+
+    /**
+     * Serialize the given value of the preferences tree into a buffer which can be read several times with
+     * {@link #read(TokenBuffer, Class)}.
+     */
+    static TokenBuffer buffer(Object value) {
+        TokenBuffer buffer = new TokenBuffer(MAPPER, false);
+        try {
+            writer(value.getClass()).writeValue(buffer, value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return a new instance of the given type read from the serialized value
+     */
+    static <T> T read(TokenBuffer buffer, Class<T> clazz) {
+        try {
+            return reader(clazz).readValue(buffer.asParser());
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true if both values have the same JSON representation
+     */
+    static boolean sameContent(Object value, Object otherValue) {
+        JsonNode node = MAPPER.valueToTree(value);
+        return node.equals(MAPPER.valueToTree(otherValue));
+    }
+
+    /**
+     * Get the fields of a parsed object. Nested objects are kept as parsed, other values are converted to their Java form.
+     *
+     * @return the fields of the object, without the null ones
+     */
+    static Map<String, Object> fields(ObjectNode objectNode) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> iterator = objectNode.fields();
+        while (iterator.hasNext()) {
+            Map.Entry<String, JsonNode> field = iterator.next();
+            JsonNode value = field.getValue();
+            if (value.isObject()) {
+                fields.put(field.getKey(), value);
+            } else if (!value.isNull()) {
+                fields.put(field.getKey(), convert(value, Object.class));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Convert the given object into the map stored in the preferences tree.
+     */
+    static Map<String, Object> toMap(Object value) {
+        return MAPPER.convertValue(value, MAP_TYPE);
+    }
+
+    /**
+     * Merge the properties of the given object into a value of the preferences tree, which is left unchanged if it is a map or a
+     * parsed object.
+     *
+     * @return the merged value, a new map if the previous value is a map or a parsed object
+     */
+    static Object merge(Object previousValue, Object value) throws IOException {
+        Object mergedValue = previousValue;
+        if (previousValue instanceof Map || previousValue instanceof JsonNode) {
+            mergedValue = toMap(previousValue);
+        }
+        update(mergedValue, value);
+        return mergedValue;
+    }
+
+    /**
+     * Update the given map of the preferences tree with the properties of the given object.
+     */
+    static void update(Object previousValue, Object value) throws IOException {
+        JsonNode node = MAPPER.valueToTree(value);
+        reader(previousValue.getClass()).withValueToUpdate(previousValue).readValue(node);
+    }
+}
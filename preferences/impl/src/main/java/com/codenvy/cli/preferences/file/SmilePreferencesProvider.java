@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+import static com.codenvy.cli.preferences.file.FilePreferences.DEFAULT_WRITE_DELAY;
+
+/**
+ * Provides preferences stored in a file with the binary Smile encoding, which is faster to load than indented JSON.
+ * The URI of the file uses the smile scheme, for example {@code smile:///home/user/.codenvy/preferences.smile}.
+ * <p>
+ * If the file doesn't exist yet, the preferences are migrated from the JSON file of the same name in the same folder, for example
+ * {@code preferences.json}. The JSON file is kept but is no longer used.
+ * </p>
+ */
+public class SmilePreferencesProvider extends FilePreferencesProvider {
+
+    /**
+     * Scheme of the URIs handled by this provider.
+     */
+    public static final String SCHEME = "smile";
+
+    /**
+     * Build and return a new preferences based on the given URI.
+     *
+     * @param uri
+     *         the URI that indicates the URI wanted
+     * @return the newly built instance
+     */
+    @Override
+    public Preferences buildPreferences(URI uri) {
+        if (!SCHEME.equals(uri.getScheme())) {
+            return null;
+        }
+        File preferencesFile = getFile(uri);
+        migrate(getJsonFile(preferencesFile), preferencesFile);
+        return register(new FilePreferences(preferencesFile, DEFAULT_WRITE_DELAY, PreferencesFormat.SMILE).watch());
+    }
+
+    /**
+     * @return the JSON file having the same name than the given file
+     */
+    protected File getJsonFile(File preferencesFile) {
+        String name = preferencesFile.getName();
+        int extension = name.lastIndexOf('.');
+        if (extension > 0) {
+            name = name.substring(0, extension);
+        }
+        return new File(preferencesFile.getParentFile(), name + ".json");
+    }
+
+    /**
+     * Convert the JSON file into the given Smile file if the Smile file doesn't exist yet.
+     *
+     * @return true if the preferences have been migrated
+     */
+    protected static boolean migrate(File jsonFile, File smileFile) {
+        if (smileFile.exists() || !jsonFile.isFile()) {
+            return false;
+        }
+        JsonPreferences content;
+        try {
+            content = PreferencesFormat.JSON.reader().readValue(jsonFile);
+        } catch (JsonMappingException e) {
+            // empty or invalid file, nothing to migrate
+            return false;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the preferences file " + jsonFile, e);
+        }
+        try {
+            FilePreferences.replaceFile(smileFile.toPath(), PreferencesFormat.SMILE.writer().writeValueAsBytes(content));
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to migrate the preferences file " + jsonFile + " to " + smileFile, e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences;
+
+import com.codenvy.cli.preferences.file.FilePreferences;
+import com.codenvy.cli.preferences.file.FilePreferencesProvider;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test the sharing of the preferences built for the same URI.
+ */
+public class PreferencesAPITest {
+
+    private File preferencesFile;
+
+    private FilePreferencesProvider provider;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        preferencesFile = File.createTempFile("preferences", ".json");
+        provider = new FilePreferencesProvider();
+        PreferencesAPI.addPreferencesProvider(provider);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        PreferencesAPI.removePreferencesProvider(provider);
+        provider.close();
+        preferencesFile.delete();
+    }
+
+    @Test
+    public void testPreferencesAreSharedUntilReleased() {
+        URI uri = preferencesFile.toURI();
+        Preferences preferences = PreferencesAPI.getPreferences(uri);
+
+        assertThat(PreferencesAPI.getPreferences(uri)).isSameAs(preferences);
+        PreferencesAPI.releasePreferences(uri);
+        assertThat(PreferencesAPI.getPreferences(uri)).isSameAs(preferences);
+
+        PreferencesAPI.releasePreferences(uri);
+        PreferencesAPI.releasePreferences(uri);
+        assertThat(PreferencesAPI.getPreferences(uri)).isNotSameAs(preferences);
+        PreferencesAPI.releasePreferences(uri);
+    }
+
+    @Test
+    public void testEquivalentURIsAreShared() {
+        URI uri = preferencesFile.toURI();
+        URI otherUri = new File(preferencesFile.getParentFile(), "." + File.separator + preferencesFile.getName()).toURI();
+
+        try {
+            assertThat(PreferencesAPI.getPreferences(otherUri)).isSameAs(PreferencesAPI.getPreferences(uri));
+        } finally {
+            PreferencesAPI.releasePreferences(uri);
+            PreferencesAPI.releasePreferences(uri);
+        }
+    }
+
+    @Test
+    public void testReleasedPreferencesAreForgottenByTheProvider() {
+        final AtomicInteger closes = new AtomicInteger();
+        FilePreferencesProvider countingProvider = new FilePreferencesProvider() {
+            @Override
+            public Preferences buildPreferences(URI uri) {
+                return register(new FilePreferences(new File(uri)) {
+                    @Override
+                    public void close() {
+                        closes.incrementAndGet();
+                        super.close();
+                    }
+                });
+            }
+        };
+        PreferencesAPI.removePreferencesProvider(provider);
+        PreferencesAPI.addPreferencesProvider(countingProvider);
+        try {
+            URI uri = preferencesFile.toURI();
+            PreferencesAPI.getPreferences(uri);
+            PreferencesAPI.releasePreferences(uri);
+            assertThat(closes.get()).isEqualTo(1);
+
+            // not closed again
+            countingProvider.close();
+            assertThat(closes.get()).isEqualTo(1);
+        } finally {
+            PreferencesAPI.removePreferencesProvider(countingProvider);
+        }
+    }
+}
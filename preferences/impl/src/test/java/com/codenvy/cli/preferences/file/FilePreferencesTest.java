@@ -10,9 +10,14 @@
  *******************************************************************************/
 package com.codenvy.cli.preferences.file;
 
+import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.codenvy.cli.preferences.PreferencesListener;
+
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -21,12 +26,16 @@ import java.nio.file.CopyOption;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.codenvy.cli.preferences.file.FakePojo.DUMB_POJO_NAME;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
@@ -39,6 +48,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 public class FilePreferencesTest {
     private static final String USELESS_POJO_KEY = "uselessPojo";
+    private static final String OTHER_POJO_KEY = "otherPojo";
 
 
     protected FilePreferences getPreferencesFile(String resourceName) throws IOException {
@@ -232,4 +242,290 @@ public class FilePreferencesTest {
 
         filePreferences.get("key", List.class);
     }
+
+    @Test
+    public void testModificationsAreCoalesced() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        final AtomicInteger dumps = new AtomicInteger();
+        FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            protected FilePreferences dumpFile() {
+                dumps.incrementAndGet();
+                return super.dumpFile();
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            filePreferences.put("key" + i, FakePojo.getDumbInstance());
+            filePreferences.path("node").merge("key" + i, OtherPojo.getInstance());
+        }
+        assertThat(dumps.get()).isEqualTo(0);
+
+        filePreferences.flush();
+        assertThat(dumps.get()).isEqualTo(1);
+
+        // nothing more to write
+        filePreferences.close();
+        assertThat(dumps.get()).isEqualTo(1);
+
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(readPreferences.get("key9", FakePojo.class));
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(readPreferences.path("node").get("key9", OtherPojo.class));
+    }
+
+    @Test
+    public void testModificationsAreWrittenInBackground() throws IOException, InterruptedException {
+        final File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, 10);
+
+        filePreferences.put(USELESS_POJO_KEY, FakePojo.getDumbInstance());
+
+        FakePojo fakePojo = null;
+        for (int i = 0; i < 100 && fakePojo == null; i++) {
+            Thread.sleep(50);
+            fakePojo = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges().get(USELESS_POJO_KEY, FakePojo.class);
+        }
+        filePreferences.close();
+
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(fakePojo);
+        // temporary files have been renamed
+        File[] tmpFiles = tempPreferencesFile.getParentFile().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(tempPreferencesFile.getName()) && name.endsWith(".tmp");
+            }
+        });
+        assertThat(tmpFiles.length).isEqualTo(0);
+    }
+
+    @Test
+    public void testBatchIsWrittenOnce() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        final AtomicInteger dumps = new AtomicInteger();
+        final FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, 0) {
+            @Override
+            protected FilePreferences dumpFile() {
+                dumps.incrementAndGet();
+                return super.dumpFile();
+            }
+        };
+
+        filePreferences.batch(new PreferencesBatch() {
+            @Override
+            public void apply(Preferences preferences) {
+                preferences.put(USELESS_POJO_KEY, FakePojo.getDumbInstance());
+                // nested batch
+                preferences.path("node").batch(new PreferencesBatch() {
+                    @Override
+                    public void apply(Preferences preferences) {
+                        preferences.put("key1", OtherPojo.getInstance());
+                        preferences.put("key2", OtherPojo.getInstance());
+                    }
+                });
+                preferences.delete(USELESS_POJO_KEY);
+                // not yet saved
+                assertThat(dumps.get()).isEqualTo(0);
+            }
+        });
+        assertThat(dumps.get()).isEqualTo(1);
+
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(readPreferences.pathExists(USELESS_POJO_KEY)).isFalse();
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(readPreferences.path("node").get("key2", OtherPojo.class));
+    }
+
+    @Test
+    public void testFailedBatchIsRolledBack() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, 0);
+        filePreferences.put(USELESS_POJO_KEY, FakePojo.getDumbInstance());
+
+        try {
+            filePreferences.batch(new PreferencesBatch() {
+                @Override
+                public void apply(Preferences preferences) {
+                    preferences.delete(USELESS_POJO_KEY);
+                    preferences.path("node").put(OTHER_POJO_KEY, OtherPojo.getInstance());
+                    throw new IllegalStateException("failure");
+                }
+            });
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("failure");
+        }
+
+        // tree is restored
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(filePreferences.get(USELESS_POJO_KEY, FakePojo.class));
+        assertThat(filePreferences.pathExists("node")).isFalse();
+
+        // and a later modification does not save the failed batch
+        filePreferences.put(OTHER_POJO_KEY, OtherPojo.getInstance());
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(readPreferences.get(USELESS_POJO_KEY, FakePojo.class));
+        assertThat(readPreferences.pathExists("node")).isFalse();
+    }
+
+    @Test
+    public void testConcurrentWritersAreMerged() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        // two processes sharing the same file
+        FilePreferences first = new FilePreferences(tempPreferencesFile, 0);
+        FilePreferences second = new FilePreferences(tempPreferencesFile, 0);
+
+        first.path("remotes").put("first", FakePojo.getDumbInstance());
+        second.path("remotes").put("second", OtherPojo.getInstance());
+
+        // nothing has been lost
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(readPreferences.path("remotes").get("first", FakePojo.class));
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(readPreferences.path("remotes").get("second", OtherPojo.class));
+
+        // first process sees the modification of the second one, even through an existing node
+        Preferences remotes = first.path("remotes");
+        first.reloadIfChanged();
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(remotes.get("second", OtherPojo.class));
+        new File(tempPreferencesFile.getPath() + ".lock").deleteOnExit();
+    }
+
+    @Test
+    public void testPendingModificationsAreKeptOnReload() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        FilePreferences first = new FilePreferences(tempPreferencesFile, TimeUnit.MINUTES.toMillis(1));
+        FilePreferences second = new FilePreferences(tempPreferencesFile, 0);
+        second.put("shared", OtherPojo.getInstance());
+
+        first.put(USELESS_POJO_KEY, FakePojo.getDumbInstance());
+        first.delete("shared");
+        first.reloadIfChanged();
+
+        // file has been reloaded but the pending modifications are still there
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(first.get(USELESS_POJO_KEY, FakePojo.class));
+        assertThat(first.pathExists("shared")).isFalse();
+
+        first.close();
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(readPreferences.pathExists("shared")).isFalse();
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(readPreferences.get(USELESS_POJO_KEY, FakePojo.class));
+        new File(tempPreferencesFile.getPath() + ".lock").deleteOnExit();
+    }
+
+    @Test
+    public void testExternalChangesAreWatched() throws IOException, InterruptedException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        new File(tempPreferencesFile.getPath() + ".lock").deleteOnExit();
+        FilePreferences other = new FilePreferences(tempPreferencesFile, 0);
+        other.path("remotes").put("unchanged", FakePojo.getDumbInstance());
+
+        FilePreferences watched = new FilePreferences(tempPreferencesFile, 0).watch();
+        Preferences remotes = watched.path("remotes");
+        Object unchanged = ((JsonPreferences)remotes).get("unchanged");
+        final BlockingQueue<String> changedKeys = new LinkedBlockingQueue<>();
+        remotes.addListener(new PreferencesListener() {
+            @Override
+            public void changed(Preferences preferences, String key) {
+                changedKeys.add(key);
+            }
+        });
+
+        other.path("remotes").put("added", OtherPojo.getInstance());
+
+        assertThat(changedKeys.poll(30, TimeUnit.SECONDS)).isEqualTo("added");
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(remotes.get("added", OtherPojo.class));
+        // unchanged entry has not been replaced
+        assertThat(((JsonPreferences)remotes).get("unchanged")).isSameAs(unchanged);
+        watched.close();
+    }
+
+    @Test
+    public void testHeldNodeSeesExternalChanges() throws IOException, InterruptedException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        new File(tempPreferencesFile.getPath() + ".lock").deleteOnExit();
+        FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, 0);
+        Preferences remotes = filePreferences.path("remotes");
+
+        FilePreferences other = new FilePreferences(tempPreferencesFile, 0);
+        other.path("remotes").put("added", OtherPojo.getInstance());
+        // changes are checked at most once per second
+        Thread.sleep(1100);
+
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(remotes.get("added", OtherPojo.class));
+        filePreferences.close();
+        other.close();
+    }
+
+    @Test
+    public void testModificationsAreNotRecordedWhenSavesAreDisabled() throws IOException {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        FilePreferences filePreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+
+        filePreferences.put(USELESS_POJO_KEY, FakePojo.getDumbInstance());
+        filePreferences.path("node").put("key", OtherPojo.getInstance());
+
+        assertThat(filePreferences.getRootNode().getModifications()).isEmpty();
+    }
+
+    @Test
+    public void testPreferencesCanBeModifiedWhileWritten() throws Exception {
+        File tempPreferencesFile = File.createTempFile("preferencesTest", ".json");
+        tempPreferencesFile.deleteOnExit();
+        new File(tempPreferencesFile.getPath() + ".lock").deleteOnExit();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FilePreferences filePreferences = new FilePreferences(tempPreferencesFile, TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            protected PendingWrite prepareWrite() throws IOException {
+                final PendingWrite pendingWrite = super.prepareWrite();
+                return new PendingWrite() {
+                    @Override
+                    public void write() throws IOException {
+                        writing.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        pendingWrite.write();
+                    }
+                };
+            }
+        };
+        filePreferences.put("first", FakePojo.getDumbInstance());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> flush = executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    filePreferences.flush();
+                }
+            });
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<?> put = executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    filePreferences.put("second", OtherPojo.getInstance());
+                }
+            });
+            // not blocked by the write in progress
+            put.get(10, TimeUnit.SECONDS);
+            release.countDown();
+            flush.get(10, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        // the modification made during the write is saved by the next one
+        assertThat(filePreferences.getRootNode().getModifications()).hasSize(1);
+        filePreferences.close();
+
+        FilePreferences readPreferences = new FilePreferences(tempPreferencesFile).setDisableSaveOnChanges();
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(readPreferences.get("second", OtherPojo.class));
+    }
 }
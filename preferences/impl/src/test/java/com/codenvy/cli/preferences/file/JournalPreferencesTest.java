@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test the preferences saved in a journal.
+ */
+public class JournalPreferencesTest {
+
+    private File folder;
+
+    private File preferencesFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("preferencesTest").toFile();
+        preferencesFile = new File(folder, "preferences.json");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    protected Path getJournalFile() {
+        return new File(folder, "preferences.json.journal").toPath();
+    }
+
+    @Test
+    public void testModificationsAreAppended() throws IOException {
+        JournalPreferences preferences = new JournalPreferences(preferencesFile, 0);
+        preferences.path("remotes").put("first", FakePojo.getDumbInstance());
+        long journalSize = Files.size(getJournalFile());
+        preferences.path("remotes").merge("first", new OtherPojo(FakePojo.DUMB_POJO_NAME, "merged"));
+        preferences.close();
+
+        // snapshot is untouched, the journal only grows with the merged value
+        assertThat(preferencesFile.length()).isEqualTo(0L);
+        assertThat(Files.size(getJournalFile()) - journalSize).isLessThan(journalSize);
+
+        JournalPreferences readPreferences = new JournalPreferences(preferencesFile);
+        OtherPojo first = readPreferences.path("remotes").get("first", OtherPojo.class);
+        assertThat(first.getName()).isEqualTo(FakePojo.DUMB_POJO_NAME);
+        assertThat(first.getAnotherProperty()).isEqualTo("merged");
+        readPreferences.close();
+    }
+
+    @Test
+    public void testIncompleteRecordIsDropped() throws IOException {
+        JournalPreferences preferences = new JournalPreferences(preferencesFile, 0);
+        preferences.put("first", OtherPojo.getInstance());
+        preferences.close();
+        // interrupted write
+        Files.write(getJournalFile(), new byte[]{0, 0, 1, 0, 42}, APPEND);
+
+        JournalPreferences recoveredPreferences = new JournalPreferences(preferencesFile, 0);
+        assertThat(recoveredPreferences.pathExists("first")).isTrue();
+        recoveredPreferences.put("second", OtherPojo.getInstance());
+        recoveredPreferences.close();
+
+        JournalPreferences readPreferences = new JournalPreferences(preferencesFile);
+        assertThat(readPreferences.pathExists("first")).isTrue();
+        assertThat(readPreferences.pathExists("second")).isTrue();
+        readPreferences.close();
+    }
+
+    @Test
+    public void testJournalIsCompacted() throws IOException {
+        char[] chars = new char[1024];
+        Arrays.fill(chars, 'x');
+        String token = new String(chars);
+
+        JournalPreferences preferences = new JournalPreferences(preferencesFile, 0);
+        for (int i = 0; i < 100; i++) {
+            preferences.put("token", new OtherPojo(token, String.valueOf(i)));
+        }
+        preferences.close();
+
+        assertThat(preferencesFile.length()).isGreaterThan(0);
+        assertThat(Files.size(getJournalFile())).isLessThan(64 * 1024);
+
+        JournalPreferences readPreferences = new JournalPreferences(preferencesFile);
+        assertThat(readPreferences.get("token", OtherPojo.class).getAnotherProperty()).isEqualTo("99");
+        readPreferences.close();
+    }
+}
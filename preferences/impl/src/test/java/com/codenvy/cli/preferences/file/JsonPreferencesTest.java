@@ -11,8 +11,22 @@
 package com.codenvy.cli.preferences.file;
 
 
+import com.codenvy.cli.preferences.Preferences;
+import com.codenvy.cli.preferences.PreferencesBatch;
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * @author Stéphane Daviet
  */
@@ -25,4 +39,133 @@ public class JsonPreferencesTest {
 
         jsonPreferences.get("uselessPojo", FakePojo.class);
     }
+
+    @Test
+    public void testConvertedValueIsNotShared() {
+        JsonPreferences jsonPreferences = new JsonPreferences();
+        jsonPreferences.put("otherPojo", OtherPojo.getInstance());
+
+        OtherPojo otherPojo = jsonPreferences.get("otherPojo", OtherPojo.class);
+        otherPojo.setAnotherProperty("changed");
+
+        OtherPojo readPojo = jsonPreferences.get("otherPojo", OtherPojo.class);
+        assertThat(readPojo).isNotSameAs(otherPojo);
+        assertThat(readPojo.getAnotherProperty()).isEqualTo(OtherPojo.getInstance().getAnotherProperty());
+        assertThat(jsonPreferences.get("otherPojo", FakePojo.class)).isNotNull();
+    }
+
+    @Test
+    public void testCacheIsInvalidatedByMerge() {
+        JsonPreferences jsonPreferences = new JsonPreferences();
+        jsonPreferences.put("otherPojo", OtherPojo.getInstance());
+        OtherPojo otherPojo = jsonPreferences.get("otherPojo", OtherPojo.class);
+
+        jsonPreferences.merge("otherPojo", FakePojo.getDumbInstance());
+
+        OtherPojo mergedPojo = jsonPreferences.get("otherPojo", OtherPojo.class);
+        assertThat(mergedPojo).isNotSameAs(otherPojo);
+        assertThat(mergedPojo.getName()).isEqualTo(FakePojo.DUMB_POJO_NAME);
+        assertThat(mergedPojo.getAnotherProperty()).isEqualTo(otherPojo.getAnotherProperty());
+
+        jsonPreferences.delete("otherPojo");
+        assertThat(jsonPreferences.get("otherPojo", OtherPojo.class)).isNull();
+    }
+
+    @Test
+    public void testCacheIsInvalidatedByNestedModification() {
+        JsonPreferences jsonPreferences = new JsonPreferences();
+        jsonPreferences.path("node").put("first", OtherPojo.getInstance());
+        assertThat(jsonPreferences.get("node", Map.class).size()).isEqualTo(1);
+
+        jsonPreferences.path("node").put("second", OtherPojo.getInstance());
+
+        assertThat(jsonPreferences.get("node", Map.class).size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNestedObjectsAreConvertedOnAccess() throws IOException {
+        String content = "{\"remotes\":{\"first\":{\"name\":\"first\"},\"second\":{\"name\":\"second\"}},\"count\":2}";
+        JsonPreferences jsonPreferences = PreferencesMapper.reader(JsonPreferences.class).readValue(content);
+
+        assertThat(jsonPreferences.get("count", Integer.class)).isEqualTo(2);
+        assertThat(jsonPreferences.get("remotes")).isInstanceOf(JsonNode.class);
+
+        JsonPreferences remotes = (JsonPreferences)jsonPreferences.path("remotes");
+        assertThat(remotes.get("first", OtherPojo.class).getName()).isEqualTo("first");
+        // other remote is still not converted
+        assertThat(remotes.get("second")).isInstanceOf(JsonNode.class);
+
+        remotes.merge("second", new OtherPojo("second", "merged"));
+        OtherPojo second = remotes.get("second", OtherPojo.class);
+        assertThat(second.getName()).isEqualTo("second");
+        assertThat(second.getAnotherProperty()).isEqualTo("merged");
+        assertThat(jsonPreferences.get("remotes", Map.class).size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentMergesAreAtomic() throws InterruptedException {
+        final JsonPreferences jsonPreferences = new JsonPreferences();
+        jsonPreferences.put("remote", Collections.singletonMap("url", "http://localhost"));
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int thread = i;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 50; j++) {
+                            jsonPreferences.merge("remote", Collections.singletonMap("key" + thread + "-" + j, "value"));
+                            jsonPreferences.get("remote", Map.class);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(jsonPreferences.get("remote", Map.class).size()).isEqualTo(8 * 50 + 1);
+    }
+
+    @Test
+    public void testReadersWaitForBatches() throws InterruptedException {
+        final JsonPreferences jsonPreferences = new JsonPreferences();
+        final AtomicBoolean firstFound = new AtomicBoolean();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                firstFound.set(jsonPreferences.pathExists("first"));
+            }
+        });
+
+        jsonPreferences.batch(new PreferencesBatch() {
+            @Override
+            public void apply(Preferences preferences) {
+                preferences.put("first", OtherPojo.getInstance());
+                reader.start();
+                try {
+                    reader.join(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // reader is blocked until the batch completes
+                assertThat(reader.isAlive()).isTrue();
+                preferences.put("second", OtherPojo.getInstance());
+            }
+        });
+        reader.join();
+
+        assertThat(firstFound.get()).isTrue();
+    }
 }
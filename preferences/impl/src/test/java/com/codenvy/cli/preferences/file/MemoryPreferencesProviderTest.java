@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test the provider of preferences kept in memory.
+ */
+public class MemoryPreferencesProviderTest {
+
+    private static final String SEED_RESOURCE = "/" + MemoryPreferencesProviderTest.class.getPackage().getName().replace(".", "/") +
+                                                "/perfectPojoMatchPreferences.json";
+
+    private MemoryPreferencesProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        provider = new MemoryPreferencesProvider();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    public void testOtherSchemesAreIgnored() {
+        assertThat(provider.buildPreferences(new File("preferences.json").toURI())).isNull();
+    }
+
+    @Test
+    public void testSameURIShareContent() {
+        Preferences preferences = provider.buildPreferences(URI.create("mem:test"));
+        preferences.path("remotes").put("default", OtherPojo.getInstance());
+
+        assertThat(provider.buildPreferences(URI.create("mem:test"))).isSameAs(preferences);
+        assertThat(provider.buildPreferences(URI.create("mem:other")).pathExists("remotes")).isFalse();
+    }
+
+    @Test
+    public void testSeededFromResource() {
+        Preferences preferences = provider.buildPreferences(URI.create(MemoryPreferencesProvider.SCHEME + ":" + SEED_RESOURCE));
+
+        FakePojo fakePojo = preferences.get("uselessPojo", FakePojo.class);
+
+        assertThat(fakePojo).isEqualToComparingFieldByField(FakePojo.getDumbInstance());
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.cli.preferences.file;
+
+import com.codenvy.cli.preferences.Preferences;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test the provider of preferences stored with the Smile encoding.
+ */
+public class SmilePreferencesProviderTest {
+
+    private File folder;
+
+    private SmilePreferencesProvider provider;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("preferencesTest").toFile();
+        provider = new SmilePreferencesProvider();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        provider.close();
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    protected URI getURI(File file) {
+        return URI.create(SmilePreferencesProvider.SCHEME + "://" + file.toURI().getPath());
+    }
+
+    @Test
+    public void testOtherSchemesAreIgnored() {
+        assertThat(provider.buildPreferences(new File(folder, "preferences.json").toURI())).isNull();
+    }
+
+    @Test
+    public void testMigrationFromJson() {
+        File jsonFile = new File(folder, "preferences.json");
+        FilePreferences jsonPreferences = new FilePreferences(jsonFile, 0);
+        jsonPreferences.path("remotes").put("default", FakePojo.getDumbInstance());
+        jsonPreferences.close();
+
+        File smileFile = new File(folder, "preferences.smile");
+        Preferences preferences = provider.buildPreferences(getURI(smileFile));
+
+        assertThat(smileFile.exists()).isTrue();
+        assertThat(jsonFile.exists()).isTrue();
+        assertThat(FakePojo.getDumbInstance()).isEqualToComparingFieldByField(preferences.path("remotes").get("default", FakePojo.class));
+
+        // migration is done only once
+        assertThat(SmilePreferencesProvider.migrate(jsonFile, smileFile)).isFalse();
+    }
+
+    @Test
+    public void testModificationsAreSaved() {
+        File smileFile = new File(folder, "preferences.smile");
+        Preferences preferences = provider.buildPreferences(getURI(smileFile));
+        preferences.put("otherPojo", OtherPojo.getInstance());
+        provider.close();
+
+        FilePreferences readPreferences = new FilePreferences(smileFile, 0, PreferencesFormat.SMILE).setDisableSaveOnChanges();
+        assertThat(OtherPojo.getInstance()).isEqualToComparingFieldByField(readPreferences.get("otherPojo", OtherPojo.class));
+    }
+}